@@ -0,0 +1,82 @@
+package com.hp.zipcode.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+
+/**
+ * JMH benchmarks of the lookups of a ConcurrentZipCodeRangeSet, alone and while writers keep adding
+ * and removing ranges. Run with -t 1, 2, 4... to check that the lookup throughput scales with the threads.
+ *
+ * @author Huy Pham
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentZipCodeRangeSetBenchmark {
+	private ConcurrentZipCodeRangeSet zipCodeRangeSet;
+
+	@Setup(Level.Trial)
+	public void setUp() throws InvalidZipCodeRangeException {
+		zipCodeRangeSet = new ConcurrentZipCodeRangeSet();
+		for (int zipCode = 0; zipCode < 99990; zipCode += 20) {
+			zipCodeRangeSet.add(zipCode, zipCode + 9);
+		}
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean contains() {
+		return zipCodeRangeSet.contains(ThreadLocalRandom.current().nextInt(100000));
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(6)
+	public boolean containsWhileWriting() {
+		return zipCodeRangeSet.contains(ThreadLocalRandom.current().nextInt(100000));
+	}
+
+	@Benchmark
+	@Group("readWrite")
+	@GroupThreads(2)
+	public void update() throws InvalidZipCodeRangeException {
+		int zipCode = ThreadLocalRandom.current().nextInt(99990);
+		if ((zipCode & 1) == 0) {
+			zipCodeRangeSet.add(zipCode, zipCode + 9);
+		} else {
+			zipCodeRangeSet.remove(zipCode, zipCode + 9);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(ConcurrentZipCodeRangeSetBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
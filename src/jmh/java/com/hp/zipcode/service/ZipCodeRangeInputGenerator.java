@@ -0,0 +1,70 @@
+package com.hp.zipcode.service;
+
+import java.util.Random;
+
+/**
+ * Generates zip code ranges in the bracket format for the benchmarks.
+ * The same parameters and seed always generate the same input.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeInputGenerator {
+
+	/**
+	 * How much the generated ranges overlap.
+	 */
+	public enum Overlap {
+		//short ranges spread over the whole domain, few of them overlap
+		SPARSE(20),
+		//long ranges, most of them overlap
+		DENSE(2000);
+
+		private final int maxLength;
+
+		Overlap(int maxLength) {
+			this.maxLength = maxLength;
+		}
+	}
+
+	/**
+	 * Generate zip code ranges.
+	 *
+	 * @param rangeCount	the number of ranges
+	 * @param overlap	how much the ranges overlap
+	 * @param sorted	whether the ranges are sorted by lower bound
+	 * @param whitespaceNoise	whether random spaces and tabs surround the bounds
+	 * @param seed	the seed of the random generator
+	 * @return the zip code ranges
+	 */
+	public static String generate(int rangeCount, Overlap overlap, boolean sorted, boolean whitespaceNoise, long seed) {
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder(rangeCount * (whitespaceNoise ? 20 : 15));
+		for (int i = 0; i < rangeCount; i++) {
+			int lowerBound = sorted ? (int) ((long) i * 99999 / rangeCount) : random.nextInt(100000);
+			int upperBound = Math.min(99999, lowerBound + random.nextInt(overlap.maxLength));
+			sb.append('[');
+			appendNoise(sb, random, whitespaceNoise);
+			appendZipCode(sb, lowerBound);
+			appendNoise(sb, random, whitespaceNoise);
+			sb.append(',');
+			appendNoise(sb, random, whitespaceNoise);
+			appendZipCode(sb, upperBound);
+			appendNoise(sb, random, whitespaceNoise);
+			sb.append("] ");
+		}
+		return sb.toString();
+	}
+
+	private static void appendZipCode(StringBuilder sb, int zipCode) {
+		sb.append(ZipCodeRangeParser.formatZipCode(zipCode));
+	}
+
+	private static void appendNoise(StringBuilder sb, Random random, boolean whitespaceNoise) {
+		if (whitespaceNoise) {
+			for (int i = random.nextInt(3); i > 0; i--) {
+				sb.append(random.nextBoolean() ? ' ' : '\t');
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.hp.zipcode.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * JMH benchmarks of the extract, validate and merge phases of the ZipCodeService,
+ * and of the whole merge, over generated inputs.
+ *
+ * Run the main method to get the throughput, the average time and the allocation rate
+ * (GC profiler) of every benchmark, the results are the baseline to compare any change against.
+ *
+ * @author Huy Pham
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ZipCodeServiceBenchmark {
+
+	/**
+	 * The generated input and its output of every phase.
+	 */
+	@State(Scope.Benchmark)
+	public static class InputState {
+		@Param({ "10", "1000", "100000", "10000000" })
+		public int rangeCount;
+
+		@Param({ "SPARSE", "DENSE" })
+		public ZipCodeRangeInputGenerator.Overlap overlap;
+
+		@Param({ "false", "true" })
+		public boolean sorted;
+
+		@Param({ "false", "true" })
+		public boolean whitespaceNoise;
+
+		String zipCodeRanges;
+		List<String> extractedZipCodeRanges;
+		List<ZipCodeRange> validatedZipCodeRanges;
+
+		@Setup(Level.Trial)
+		public void setUp() throws InvalidZipCodeRangeException {
+			ZipCodeService zipCodeService = new ZipCodeService();
+			zipCodeRanges = ZipCodeRangeInputGenerator.generate(rangeCount, overlap, sorted, whitespaceNoise, 42L);
+			extractedZipCodeRanges = zipCodeService.extractZipcodeRanges(zipCodeRanges);
+			validatedZipCodeRanges = zipCodeService.validateAndTransformZipcodeRanges(extractedZipCodeRanges);
+		}
+	}
+
+	/**
+	 * The service merging with the benchmarked strategy.
+	 */
+	@State(Scope.Benchmark)
+	public static class ServiceState {
+		@Param({ "SORT", "BITMAP", "RADIX_SORT", "PRESORTED_SCAN", "ADAPTIVE" })
+		public MergeStrategy mergeStrategy;
+
+		ZipCodeService zipCodeService;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			zipCodeService = new ZipCodeService(mergeStrategy);
+		}
+	}
+
+	@Benchmark
+	public List<String> extractZipcodeRanges(InputState input) throws InvalidZipCodeRangeException {
+		return new ZipCodeService().extractZipcodeRanges(input.zipCodeRanges);
+	}
+
+	@Benchmark
+	public List<ZipCodeRange> validateAndTransformZipcodeRanges(InputState input) throws InvalidZipCodeRangeException {
+		return new ZipCodeService().validateAndTransformZipcodeRanges(input.extractedZipCodeRanges);
+	}
+
+	@Benchmark
+	public List<ZipCodeRange> doMergeZipCodeRanges(InputState input, ServiceState service) {
+		//the input list is not modified by the merge so it can be reused
+		return service.zipCodeService.doMergeZipCodeRanges(input.validatedZipCodeRanges);
+	}
+
+	@Benchmark
+	public List<ZipCodeRange> mergeOverlappingZipCodeRanges(InputState input, ServiceState service) throws InvalidZipCodeRangeException {
+		return service.zipCodeService.mergeOverlappingZipCodeRanges(input.zipCodeRanges);
+	}
+
+	@Benchmark
+	public ZipCodeRangeSet mergeZipCodeRanges(InputState input, ServiceState service) throws InvalidZipCodeRangeException {
+		return service.zipCodeService.mergeZipCodeRanges(input.zipCodeRanges);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(ZipCodeServiceBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
@@ -1,16 +1,35 @@
 package com.hp.zipcode;
 
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
 import java.util.Scanner;
 
+import com.hp.zipcode.batch.ZipCodeBatchProcessor;
+import com.hp.zipcode.batch.ZipCodeBatchReport;
 import com.hp.zipcode.exception.InvalidZipCodeRangeException;
-import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+import com.hp.zipcode.output.ZipCodeRangeWriter;
 import com.hp.zipcode.service.ZipCodeService;
+import com.hp.zipcode.snapshot.ZipCodeRangeSnapshot;
 
 /**
  *
  * Main class that accepts a list of range of 5 digits zip code from the command line
  * then merge the overlapping ranges and print the result on the console.
+ * With the --file option the ranges are read from a file, which can be larger than the heap.
+ * With the --snapshot-out option the merged ranges are also written to a binary snapshot, that the
+ * --snapshot option loads later on without parsing and merging the ranges again.
+ * With the --batch option every line of a file is merged independently and the merged ranges of
+ * every line are written in input order to the --output file, or to the console.
+ * With the --format option the merged ranges are printed as bracket (default), csv or binary.
  * 
  * EXAMPLES:
  * If the input = [94133,94133] [94200,94299] [94600,94699]
@@ -24,23 +43,76 @@ import com.hp.zipcode.service.ZipCodeService;
  */
 public class ZipCodeMainApp
 {	
+    //the option to merge the zip code ranges of a file instead of the console
+    public static final String FILE_OPTION = "--file";
+    
+    //the option to load merged zip code ranges from a binary snapshot instead of merging them
+    public static final String SNAPSHOT_OPTION = "--snapshot";
+    
+    //the option to also write the merged zip code ranges to a binary snapshot
+    public static final String SNAPSHOT_OUT_OPTION = "--snapshot-out";
+    
+    //the option to merge every line of a file independently
+    public static final String BATCH_OPTION = "--batch";
+    
+    //the option to write the merged zip code ranges of a batch to a file instead of the console
+    public static final String OUTPUT_OPTION = "--output";
+    
+    //the option to choose the format of the merged zip code ranges printed to the console
+    public static final String FORMAT_OPTION = "--format";
+    
     public static void main( String[] args )
     {   
+        String batchFile = getOption(args, BATCH_OPTION);
+        if (batchFile != null) {
+            processBatch(batchFile, getOption(args, OUTPUT_OPTION));
+            return;
+        }
+        
+        String format = getOption(args, FORMAT_OPTION);
+        ZipCodeRangeWriter.Format outputFormat;
+        try {
+            outputFormat = format == null ? ZipCodeRangeWriter.Format.BRACKET
+                    : ZipCodeRangeWriter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown format " + format + ", expected bracket, csv or binary.");
+            return;
+        }
+        
         Scanner scanner = null;
         try {
-            System.out.println("Please input the zipcode ranges: ");
-            scanner = new Scanner(System.in);
-            String line = scanner.nextLine();
-                        
+            String zipCodeRangeFile = getOption(args, FILE_OPTION);
+            String snapshotFile = getOption(args, SNAPSHOT_OPTION);
+            String snapshotOutFile = getOption(args, SNAPSHOT_OUT_OPTION);
+            
             ZipCodeService zipCodeService = new ZipCodeService();
+            ZipCodeRangeSet mergeZipcodeRanges;
+            
+            if (snapshotFile != null) {
+                //load the merged zip code ranges without parsing them
+                mergeZipcodeRanges = ZipCodeRangeSnapshot.open(Paths.get(snapshotFile)).toRangeSet();
+            } else if (zipCodeRangeFile != null) {
+                //validate and merge the zip code ranges of the memory mapped file
+                mergeZipcodeRanges = zipCodeService.mergeZipCodeRangeFile(Paths.get(zipCodeRangeFile));
+            } else {
+                //the binary snapshot is the only thing written to the standard output
+                PrintStream console = outputFormat == ZipCodeRangeWriter.Format.BINARY ? System.err : System.out;
+                console.println("Please input the zipcode ranges: ");
+                scanner = new Scanner(System.in);
+                String line = scanner.nextLine();
+                
+                //validate and merge overlapping zip code ranges
+                //throw exception when detects an invalid range
+                mergeZipcodeRanges = zipCodeService.mergeZipCodeRanges(line);
+            }
             
-            //validate and merge overlapping zip code ranges
-            //throw exception when detects an invalid range
-            List<ZipCodeRange> mergeZipcodeRanges = zipCodeService.mergeOverlappingZipCodeRanges(line);
+            if (snapshotOutFile != null) {
+                ZipCodeRangeSnapshot.write(mergeZipcodeRanges, Paths.get(snapshotOutFile));
+            }
         	        	
             //print the merged zip code ranges to the console
-            printZipCodeRangesToConsole(mergeZipcodeRanges);
-        } catch (InvalidZipCodeRangeException e) {
+            printZipCodeRangesToConsole(mergeZipcodeRanges, outputFormat);
+        } catch (InvalidZipCodeRangeException | IOException e) {
         	e.printStackTrace(System.err);
         } finally {
             if (scanner != null) {
@@ -48,13 +120,63 @@ public class ZipCodeMainApp
             }
         }
     }
+    
+    /**
+     * Merge every line of a file independently with one worker per processor, then report the throughput.
+     * 
+     * @param batchFile the file with a list of zip code ranges per line
+     * @param outputFile the file receiving the merged ranges of every line, null to print them to the console
+     */
+    private static void processBatch(String batchFile, String outputFile) {
+        ZipCodeBatchProcessor zipCodeBatchProcessor = new ZipCodeBatchProcessor(new ZipCodeService(),
+                Runtime.getRuntime().availableProcessors());
+        try {
+            ZipCodeBatchReport zipCodeBatchReport;
+            if (outputFile != null) {
+                zipCodeBatchReport = zipCodeBatchProcessor.process(Paths.get(batchFile), Paths.get(outputFile));
+            } else {
+                try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(Paths.get(batchFile), StandardCharsets.UTF_8), 1 << 20)) {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 20);
+                    zipCodeBatchReport = zipCodeBatchProcessor.process(reader, writer);
+                }
+            }
+            System.err.println("Merged " + zipCodeBatchReport);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Get the value following an option of the command line.
+     * 
+     * @param args the command line arguments
+     * @param option the option
+     * @return the value of the option, null when the option is not given
+     */
+    private static String getOption(String[] args, String option) {
+        for (int i = 0; i + 1 < args.length; i++) {
+            if (option.equals(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+    
     /**
      * Print zip code ranges to the console.
      * 
-     * @param mergeZipcodeRanges list of zip code ranges
+     * @param mergeZipcodeRanges set of zip code ranges
+     * @param format the format of the zip code ranges
+     * @throws IOException when the console cannot be written
      */
-    private static void printZipCodeRangesToConsole(List<ZipCodeRange> mergeZipcodeRanges) {
-    	System.out.println("\nMerged zipcode ranges:\n");
-    	mergeZipcodeRanges.forEach(item->System.out.print(item));   	
-   }
+    private static void printZipCodeRangesToConsole(ZipCodeRangeSet mergeZipcodeRanges, ZipCodeRangeWriter.Format format) throws IOException {
+        if (format != ZipCodeRangeWriter.Format.BINARY) {
+            System.out.println("\nMerged zipcode ranges:\n");
+        }
+        try (ZipCodeRangeWriter writer = ZipCodeRangeWriter.toStandardOutput(format)) {
+            writer.write(mergeZipcodeRanges);
+        }
+    }
 }
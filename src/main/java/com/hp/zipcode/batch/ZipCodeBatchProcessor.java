@@ -0,0 +1,196 @@
+package com.hp.zipcode.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.service.ZipCodeRangeParser;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ * Merges the zip code ranges of every line of a file independently, e.g. one list of ranges per customer,
+ * and writes the merged ranges of every line in input order.
+ *
+ * The lines are read in chunks that a pool of workers merges in parallel. The chunks in progress are kept
+ * in input order in a bounded queue: when it is full the reader waits for the oldest chunk and writes it,
+ * so at most a fixed number of lines are held in memory whatever the size of the file. A line with invalid
+ * ranges is written as the error message prefixed by ERROR_PREFIX and does not stop the batch.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeBatchProcessor {
+	//the prefix of the output line of an input line with invalid ranges
+	public static final String ERROR_PREFIX = "ERROR ";
+
+	//the number of lines merged by a worker at once
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	//the size of the buffers of the input and output files
+	private static final int FILE_BUFFER_SIZE = 1 << 20;
+
+	private final ZipCodeService zipCodeService;
+	private final int threadCount;
+	private final int chunkSize;
+
+	//the maximum number of chunks in progress
+	private final int maxPendingChunks;
+
+	/**
+	 * Create a batch processor merging chunks of DEFAULT_CHUNK_SIZE lines.
+	 *
+	 * @param zipCodeService	the service merging the zip code ranges of a line
+	 * @param threadCount	the number of workers
+	 */
+	public ZipCodeBatchProcessor(ZipCodeService zipCodeService, int threadCount) {
+		this(zipCodeService, threadCount, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create a batch processor.
+	 *
+	 * @param zipCodeService	the service merging the zip code ranges of a line
+	 * @param threadCount	the number of workers
+	 * @param chunkSize	the number of lines merged by a worker at once
+	 */
+	public ZipCodeBatchProcessor(ZipCodeService zipCodeService, int threadCount, int chunkSize) {
+		if (threadCount < 1 || chunkSize < 1) {
+			throw new IllegalArgumentException("The thread count and the chunk size have to be at least 1.");
+		}
+		this.zipCodeService = zipCodeService;
+		this.threadCount = threadCount;
+		this.chunkSize = chunkSize;
+		this.maxPendingChunks = threadCount * 4;
+	}
+
+	/**
+	 * Merge the zip code ranges of every line of a file into another file.
+	 *
+	 * @param inputFile	the UTF-8 file with a list of zip code ranges per line
+	 * @param outputFile	the file receiving the merged ranges of every line, replaced if it exists
+	 * @return the number of lines, errors and the throughput
+	 *
+	 * @throws IOException when a file cannot be read or written
+	 * @throws InterruptedException when interrupted while waiting for a worker
+	 */
+	public ZipCodeBatchReport process(Path inputFile, Path outputFile) throws IOException, InterruptedException {
+		try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(inputFile, StandardCharsets.UTF_8), FILE_BUFFER_SIZE);
+				Writer writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+			return process(reader, writer);
+		}
+	}
+
+	/**
+	 * Merge the zip code ranges of every line of a reader, the reader and the writer are not closed.
+	 *
+	 * @param reader	a list of zip code ranges per line
+	 * @param writer	receives the merged ranges of every line, one line per input line
+	 * @return the number of lines, errors and the throughput
+	 *
+	 * @throws IOException when the reader cannot be read or the writer cannot be written
+	 * @throws InterruptedException when interrupted while waiting for a worker
+	 */
+	public ZipCodeBatchReport process(BufferedReader reader, Writer writer) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		long lineCount = 0;
+		long errorCount = 0;
+
+		//the chunks in progress in input order, the reorder buffer
+		ArrayDeque<Future<ChunkResult>> pendingChunks = new ArrayDeque<Future<ChunkResult>>(maxPendingChunks);
+		ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<String> chunk = new ArrayList<String>(chunkSize);
+			String line;
+			while ((line = reader.readLine()) != null) {
+				chunk.add(line);
+				lineCount++;
+				if (chunk.size() == chunkSize) {
+					if (pendingChunks.size() == maxPendingChunks) {
+						//backpressure, wait for the oldest chunk before reading more lines
+						errorCount += write(pendingChunks.poll(), writer);
+					}
+					pendingChunks.add(submit(workers, chunk));
+					chunk = new ArrayList<String>(chunkSize);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				pendingChunks.add(submit(workers, chunk));
+			}
+			while (!pendingChunks.isEmpty()) {
+				errorCount += write(pendingChunks.poll(), writer);
+			}
+			writer.flush();
+		} finally {
+			for (Future<ChunkResult> pendingChunk : pendingChunks) {
+				pendingChunk.cancel(true);
+			}
+			workers.shutdownNow();
+		}
+		return new ZipCodeBatchReport(lineCount, errorCount, System.nanoTime() - start);
+	}
+
+	private Future<ChunkResult> submit(ExecutorService workers, List<String> chunk) {
+		return workers.submit(() -> merge(chunk));
+	}
+
+	/**
+	 * Merge the zip code ranges of every line of a chunk.
+	 */
+	private ChunkResult merge(List<String> chunk) {
+		String[] outputLines = new String[chunk.size()];
+		int errorCount = 0;
+		for (int i = 0; i < outputLines.length; i++) {
+			try {
+				outputLines[i] = ZipCodeRangeParser.formatZipCodeRanges(zipCodeService.mergeZipCodeRanges(chunk.get(i)));
+			} catch (InvalidZipCodeRangeException e) {
+				outputLines[i] = ERROR_PREFIX + e.getMessage();
+				errorCount++;
+			}
+		}
+		return new ChunkResult(outputLines, errorCount);
+	}
+
+	/**
+	 * Wait for a chunk and write its output lines.
+	 *
+	 * @return the number of lines with invalid ranges
+	 */
+	private static int write(Future<ChunkResult> pendingChunk, Writer writer) throws IOException, InterruptedException {
+		ChunkResult chunkResult;
+		try {
+			chunkResult = pendingChunk.get();
+		} catch (ExecutionException e) {
+			//a bug rather than an invalid line, the invalid lines are part of the result
+			throw new IllegalStateException("Failed to merge the zip code ranges of a chunk.", e.getCause());
+		}
+		for (String outputLine : chunkResult.outputLines) {
+			writer.write(outputLine);
+			writer.write('\n');
+		}
+		return chunkResult.errorCount;
+	}
+
+	/**
+	 * The output lines of a chunk.
+	 */
+	private static final class ChunkResult {
+		private final String[] outputLines;
+		private final int errorCount;
+
+		ChunkResult(String[] outputLines, int errorCount) {
+			this.outputLines = outputLines;
+			this.errorCount = errorCount;
+		}
+	}
+}
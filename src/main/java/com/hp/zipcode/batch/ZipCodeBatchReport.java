@@ -0,0 +1,46 @@
+package com.hp.zipcode.batch;
+
+import java.util.Locale;
+
+/**
+ * The number of lines merged by a batch, how many of them had invalid ranges and how fast.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeBatchReport {
+	private final long lineCount;
+	private final long errorCount;
+	private final long elapsedNanos;
+
+	public ZipCodeBatchReport(long lineCount, long errorCount, long elapsedNanos) {
+		this.lineCount = lineCount;
+		this.errorCount = errorCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return the number of lines merged per second
+	 */
+	public double getLinesPerSecond() {
+		return elapsedNanos == 0 ? 0 : lineCount * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%d lines (%d with errors) in %.3f s, %.0f lines/s", lineCount, errorCount,
+				elapsedNanos / 1e9, getLinesPerSecond());
+	}
+}
@@ -2,6 +2,7 @@ package com.hp.zipcode.exception;
 
 /**
  * The InvalidZipcodeRangeException is thrown when the ZipCodeService detects an invalid zip code range.
+ * Its kind tells which check failed without parsing the message.
  * 
  * @author Huy Pham
  *
@@ -13,13 +14,27 @@ public class InvalidZipCodeRangeException extends Exception {
 	 */
 	private static final long serialVersionUID = 1023072187931375009L;
 
+	//the kind of invalid zip code range
+	private final ZipCodeRangeErrorKind kind;
+
 	/**
-     * Constructs a new exception with the specified detail message.
+     * Constructs a new validation exception with the specified detail message.
      *
      * @param   message   the detail message.
      */
     public InvalidZipCodeRangeException(String message) {
+        this(ZipCodeRangeErrorKind.VALIDATION, message);
+    }
+
+	/**
+     * Constructs a new exception with the specified kind and detail message.
+     *
+     * @param   kind   the kind of invalid zip code range.
+     * @param   message   the detail message.
+     */
+    public InvalidZipCodeRangeException(ZipCodeRangeErrorKind kind, String message) {
         super(message);
+        this.kind = kind;
     }
 
     /**
@@ -31,5 +46,13 @@ public class InvalidZipCodeRangeException extends Exception {
      */
     public InvalidZipCodeRangeException(String message, Throwable cause) {
         super(message, cause);
+        this.kind = ZipCodeRangeErrorKind.VALIDATION;
+    }
+
+    /**
+     * @return the kind of invalid zip code range
+     */
+    public ZipCodeRangeErrorKind getKind() {
+        return kind;
     }
 }
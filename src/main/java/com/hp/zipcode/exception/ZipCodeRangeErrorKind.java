@@ -0,0 +1,24 @@
+package com.hp.zipcode.exception;
+
+/**
+ * The kinds of invalid zip code ranges, one per error message of the ZipCodeService.
+ * 
+ * @author Huy Pham
+ *
+ */
+public enum ZipCodeRangeErrorKind {
+	/**
+	 * The zip code ranges could not be extracted from the input.
+	 */
+	EXTRACT,
+
+	/**
+	 * A range is not made of two 5 digits zip codes separated by a comma.
+	 */
+	VALIDATION,
+
+	/**
+	 * The lower bound of a range is greater than its upper bound.
+	 */
+	OUT_OF_BOUND
+}
@@ -0,0 +1,339 @@
+package com.hp.zipcode.join;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Tags large numbers of zip codes as in or out of the coverage of merged zip code ranges.
+ *
+ * The coverage is a bitmap of the zip code domain padded to 2^17 bits, so the word of any zip code below
+ * 2^17 is read without a bound check, and the lookup of a zip code is a shift, a load and a mask without
+ * any branch. The zip codes are joined 64 at a time into one word of the coverage mask, and filtered by
+ * writing every zip code then moving the output position only when it is covered.
+ * Zip codes out of the domain, negative ones included, are never covered.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeCoverageJoin {
+	//the number of zip codes copied from an IntBuffer at once
+	public static final int CHUNK_SIZE = 1 << 16;
+
+	//the size of the buffers of the input and output files
+	private static final int FILE_BUFFER_SIZE = 1 << 20;
+
+	//the bits of the padded bitmap, 2^17 > 99999
+	private static final int DOMAIN_BITS = 17;
+	private static final int WORD_MASK = (1 << (DOMAIN_BITS - 6)) - 1;
+
+	/**
+	 * The outputs of a file join.
+	 */
+	public enum Output {
+		//one bit per input line, 64 lines per little endian long, 1 when the zip code is covered
+		MASK,
+		//the input lines with a covered zip code
+		FILTER
+	}
+
+	private final long[] words;
+
+	/**
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 */
+	public ZipCodeCoverageJoin(ZipCodeRangeSet zipCodeRangeSet) {
+		ZipCodeBitmap zipCodeBitmap = new ZipCodeBitmap();
+		zipCodeRangeSet.forEach(zipCodeBitmap::set);
+		words = Arrays.copyOf(zipCodeBitmap.toLongArray(), WORD_MASK + 1);
+	}
+
+	private ZipCodeCoverageJoin(ZipCodeBitmap zipCodeBitmap) {
+		words = Arrays.copyOf(zipCodeBitmap.toLongArray(), WORD_MASK + 1);
+	}
+
+	/**
+	 * Create a join with the result of mergeOverlappingZipCodeRanges.
+	 *
+	 * @param zipCodeRanges	the validated zip code ranges, they do not need to be merged
+	 * @return the join
+	 */
+	public static ZipCodeCoverageJoin of(List<ZipCodeRange> zipCodeRanges) {
+		ZipCodeBitmap zipCodeBitmap = new ZipCodeBitmap();
+		for (ZipCodeRange zipCodeRange : zipCodeRanges) {
+			zipCodeBitmap.set(zipCodeRange.getLowerBound(), zipCodeRange.getUpperBound());
+		}
+		return new ZipCodeCoverageJoin(zipCodeBitmap);
+	}
+
+	/**
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is covered
+	 */
+	public boolean contains(int zipCode) {
+		return covered(zipCode) != 0;
+	}
+
+	/**
+	 * Compute the coverage mask of zip codes.
+	 *
+	 * @param zipCodes	the zip codes
+	 * @return bit i % 64 of word i / 64 is 1 when the zip code i is covered
+	 */
+	public long[] coverageMask(int[] zipCodes) {
+		long[] mask = new long[(zipCodes.length + 63) >>> 6];
+		coverageMask(zipCodes, 0, zipCodes.length, mask, 0);
+		return mask;
+	}
+
+	/**
+	 * Compute the coverage mask of the remaining zip codes of a buffer, the position of the buffer is not changed.
+	 *
+	 * @param zipCodes	the zip codes, e.g. a memory mapped file of ints
+	 * @return bit i % 64 of word i / 64 is 1 when the zip code at position + i is covered
+	 */
+	public long[] coverageMask(IntBuffer zipCodes) {
+		int size = zipCodes.remaining();
+		long[] mask = new long[(size + 63) >>> 6];
+		if (zipCodes.hasArray()) {
+			int offset = zipCodes.arrayOffset() + zipCodes.position();
+			coverageMask(zipCodes.array(), offset, offset + size, mask, 0);
+			return mask;
+		}
+		IntBuffer source = zipCodes.duplicate();
+		int[] chunk = new int[Math.min(size, CHUNK_SIZE)];
+		//the chunks hold a multiple of 64 zip codes so every chunk starts a new word of the mask
+		for (int done = 0; done < size; done += chunk.length) {
+			int length = Math.min(chunk.length, size - done);
+			source.get(chunk, 0, length);
+			coverageMask(chunk, 0, length, mask, done >>> 6);
+		}
+		return mask;
+	}
+
+	/**
+	 * Compute the coverage mask of a range of zip codes.
+	 *
+	 * @param zipCodes	the zip codes
+	 * @param from	the index of the first zip code
+	 * @param to	the index after the last zip code
+	 * @param mask	receives the bit of zip code from + i in bit i % 64 of word maskOffset + i / 64
+	 * @param maskOffset	the index of the first word of the mask
+	 */
+	public void coverageMask(int[] zipCodes, int from, int to, long[] mask, int maskOffset) {
+		int w = maskOffset;
+		int i = from;
+		for (; i + 64 <= to; i += 64) {
+			long bits = 0;
+			for (int j = 0; j < 64; j++) {
+				bits |= covered(zipCodes[i + j]) << j;
+			}
+			mask[w++] = bits;
+		}
+		if (i < to) {
+			long bits = 0;
+			for (int j = 0; i + j < to; j++) {
+				bits |= covered(zipCodes[i + j]) << j;
+			}
+			mask[w] = bits;
+		}
+	}
+
+	/**
+	 * Keep the covered zip codes of a range of zip codes.
+	 *
+	 * @param zipCodes	the zip codes
+	 * @param from	the index of the first zip code
+	 * @param to	the index after the last zip code
+	 * @param coveredZipCodes	receives the covered zip codes in input order, it has room for to - from zip codes
+	 * @return the number of covered zip codes
+	 */
+	public int filter(int[] zipCodes, int from, int to, int[] coveredZipCodes) {
+		int n = 0;
+		for (int i = from; i < to; i++) {
+			int zipCode = zipCodes[i];
+			coveredZipCodes[n] = zipCode;
+			n += (int) covered(zipCode);
+		}
+		return n;
+	}
+
+	/**
+	 * Copy the covered zip codes of the remaining zip codes of a buffer to another buffer.
+	 *
+	 * @param zipCodes	the zip codes, the buffer is consumed
+	 * @param coveredZipCodes	receives the covered zip codes in input order
+	 * @return the number of covered zip codes
+	 * @throws java.nio.BufferOverflowException when the covered zip codes do not fit in the output buffer
+	 */
+	public int filter(IntBuffer zipCodes, IntBuffer coveredZipCodes) {
+		int[] chunk = new int[Math.min(zipCodes.remaining(), CHUNK_SIZE)];
+		int total = 0;
+		while (zipCodes.hasRemaining()) {
+			int length = Math.min(chunk.length, zipCodes.remaining());
+			zipCodes.get(chunk, 0, length);
+			//the covered zip codes are compacted in place, they are never ahead of the zip code being read
+			int n = filter(chunk, 0, length, chunk);
+			coveredZipCodes.put(chunk, 0, n);
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * Count the covered zip codes of a range of zip codes.
+	 *
+	 * @param zipCodes	the zip codes
+	 * @param from	the index of the first zip code
+	 * @param to	the index after the last zip code
+	 * @return the number of covered zip codes
+	 */
+	public int count(int[] zipCodes, int from, int to) {
+		long n = 0;
+		for (int i = from; i < to; i++) {
+			n += covered(zipCodes[i]);
+		}
+		return (int) n;
+	}
+
+	/**
+	 * Join a file with a zip code at the start of every line, e.g. 94133 or 94133-1234 or 94133,address...
+	 * A line that does not start with 5 digits is not covered.
+	 *
+	 * @param zipCodeFile	the ASCII or UTF-8 file of zip codes
+	 * @param outputFile	the file receiving the coverage mask or the covered lines, replaced if it exists
+	 * @param output	what to write
+	 * @return the number of lines and of covered lines
+	 * @throws IOException when a file cannot be read or written
+	 */
+	public ZipCodeJoinReport join(Path zipCodeFile, Path outputFile, Output output) throws IOException {
+		long start = System.nanoTime();
+		long lineCount = 0;
+		long coveredCount = 0;
+		try (FileChannel input = FileChannel.open(zipCodeFile, StandardOpenOption.READ);
+				FileChannel outputChannel = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			byte[] buffer = new byte[FILE_BUFFER_SIZE];
+			int length = 0;
+			ByteBuffer outputBuffer = ByteBuffer.allocate(FILE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			long bits = 0;
+			int bitCount = 0;
+			boolean endOfInput = false;
+
+			while (!endOfInput) {
+				int read = input.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+				if (read < 0) {
+					endOfInput = true;
+				} else {
+					length += read;
+				}
+
+				//join the complete lines, the last line of the file may not end with a line feed
+				int lineStart = 0;
+				for (int i = 0; i < length; i++) {
+					if (buffer[i] != '\n' && (i + 1 < length || !endOfInput)) {
+						continue;
+					}
+					int lineEnd = buffer[i] == '\n' ? i : i + 1;
+					long covered = covered(parseZipCode(buffer, lineStart, lineEnd));
+					lineCount++;
+					coveredCount += covered;
+					if (output == Output.MASK) {
+						bits |= covered << bitCount;
+						if (++bitCount == 64) {
+							putLong(outputChannel, outputBuffer, bits);
+							bits = 0;
+							bitCount = 0;
+						}
+					} else if (covered != 0) {
+						putLine(outputChannel, outputBuffer, buffer, lineStart, lineEnd);
+					}
+					lineStart = i + 1;
+				}
+
+				//keep the incomplete last line for the next read, growing the buffer for a line longer than it
+				length -= lineStart;
+				System.arraycopy(buffer, lineStart, buffer, 0, length);
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+				}
+			}
+
+			if (bitCount > 0) {
+				putLong(outputChannel, outputBuffer, bits);
+			}
+			flush(outputChannel, outputBuffer);
+		}
+		return new ZipCodeJoinReport(lineCount, coveredCount, System.nanoTime() - start);
+	}
+
+	/**
+	 * @return 1 when the zip code is covered, 0 otherwise, without any branch
+	 */
+	private long covered(int zipCode) {
+		//1 when the zip code is below 2^17, 0 otherwise, negative zip codes included
+		long inDomain = ((zipCode >>> DOMAIN_BITS) - 1) >>> 31;
+		return (words[(zipCode >>> 6) & WORD_MASK] >>> zipCode) & inDomain;
+	}
+
+	/**
+	 * @return the zip code of the first 5 characters of the line, -1 when they are not 5 digits
+	 */
+	private static int parseZipCode(byte[] buffer, int start, int end) {
+		if (end - start < 5) {
+			return -1;
+		}
+		int zipCode = 0;
+		for (int i = start; i < start + 5; i++) {
+			int digit = buffer[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			zipCode = zipCode * 10 + digit;
+		}
+		return zipCode;
+	}
+
+	private static void putLong(FileChannel channel, ByteBuffer outputBuffer, long value) throws IOException {
+		if (outputBuffer.remaining() < Long.BYTES) {
+			flush(channel, outputBuffer);
+		}
+		outputBuffer.putLong(value);
+	}
+
+	private static void putLine(FileChannel channel, ByteBuffer outputBuffer, byte[] buffer, int start, int end) throws IOException {
+		int lineLength = end - start + 1;
+		if (outputBuffer.remaining() < lineLength) {
+			flush(channel, outputBuffer);
+			if (outputBuffer.remaining() < lineLength) {
+				//longer than the output buffer
+				write(channel, ByteBuffer.wrap(buffer, start, end - start));
+				write(channel, ByteBuffer.wrap(new byte[] { '\n' }));
+				return;
+			}
+		}
+		outputBuffer.put(buffer, start, end - start).put((byte) '\n');
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer outputBuffer) throws IOException {
+		outputBuffer.flip();
+		write(channel, outputBuffer);
+		outputBuffer.clear();
+	}
+
+	private static void write(FileChannel channel, ByteBuffer byteBuffer) throws IOException {
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+	}
+}
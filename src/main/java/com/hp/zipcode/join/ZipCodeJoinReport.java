@@ -0,0 +1,46 @@
+package com.hp.zipcode.join;
+
+import java.util.Locale;
+
+/**
+ * The number of lines joined with the coverage, how many of them were covered and how fast.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeJoinReport {
+	private final long lineCount;
+	private final long coveredCount;
+	private final long elapsedNanos;
+
+	public ZipCodeJoinReport(long lineCount, long coveredCount, long elapsedNanos) {
+		this.lineCount = lineCount;
+		this.coveredCount = coveredCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	public long getCoveredCount() {
+		return coveredCount;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return the number of lines joined per second
+	 */
+	public double getLinesPerSecond() {
+		return elapsedNanos == 0 ? 0 : lineCount * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%d lines (%d covered) in %.3f s, %.0f lines/s", lineCount, coveredCount,
+				elapsedNanos / 1e9, getLinesPerSecond());
+	}
+}
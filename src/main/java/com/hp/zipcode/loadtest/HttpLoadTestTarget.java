@@ -0,0 +1,62 @@
+package com.hp.zipcode.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.hp.zipcode.server.ZipCodeHttpServer;
+
+/**
+ * Sends the requests of a load test to the merge endpoint of a ZipCodeHttpServer.
+ * The connections are kept alive and reused by HttpURLConnection.
+ *
+ * @author Huy Pham
+ *
+ */
+public class HttpLoadTestTarget implements LoadTestTarget {
+	private final URL mergeUrl;
+
+	/**
+	 * @param serverUrl	the URL of the server, e.g. http://localhost:8080
+	 * @throws IOException when the URL is malformed
+	 */
+	public HttpLoadTestTarget(String serverUrl) throws IOException {
+		this.mergeUrl = URI.create(serverUrl.replaceAll("/+$", "") + ZipCodeHttpServer.MERGE_PATH).toURL();
+	}
+
+	@Override
+	public boolean send(String zipCodeRanges) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) mergeUrl.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+		byte[] body = zipCodeRanges.getBytes(StandardCharsets.UTF_8);
+		connection.setFixedLengthStreamingMode(body.length);
+		try (OutputStream requestBody = connection.getOutputStream()) {
+			requestBody.write(body);
+		}
+
+		int status = connection.getResponseCode();
+		//read the whole response so that the connection can be reused
+		try (InputStream responseBody = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream()
+				: connection.getErrorStream()) {
+			if (responseBody != null) {
+				byte[] buffer = new byte[8192];
+				while (responseBody.read(buffer) >= 0) {
+					//drain
+				}
+			}
+		}
+		if (status == HttpURLConnection.HTTP_OK) {
+			return true;
+		}
+		if (status == HttpURLConnection.HTTP_BAD_REQUEST) {
+			return false;
+		}
+		throw new IOException("Unexpected status " + status + " from " + mergeUrl);
+	}
+}
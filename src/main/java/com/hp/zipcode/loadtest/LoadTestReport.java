@@ -0,0 +1,125 @@
+package com.hp.zipcode.loadtest;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.hp.zipcode.metrics.LatencySnapshot;
+
+/**
+ * The result of a load test: how many requests were sent, how fast, their latencies and the time spent
+ * in garbage collection meanwhile. toJson() gives the machine readable form.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class LoadTestReport {
+	private final long seed;
+	private final int threads;
+	private final double targetRate;
+	private final long requestCount;
+	private final long invalidCount;
+	private final long failedCount;
+	private final long elapsedNanos;
+	private final LatencySnapshot latency;
+	private final Map<String, long[]> garbageCollections;
+
+	/**
+	 * @param garbageCollections	the number of collections then their time in milliseconds by collector
+	 */
+	LoadTestReport(long seed, int threads, double targetRate, long requestCount, long invalidCount, long failedCount,
+			long elapsedNanos, LatencySnapshot latency, Map<String, long[]> garbageCollections) {
+		this.seed = seed;
+		this.threads = threads;
+		this.targetRate = targetRate;
+		this.requestCount = requestCount;
+		this.invalidCount = invalidCount;
+		this.failedCount = failedCount;
+		this.elapsedNanos = elapsedNanos;
+		this.latency = latency;
+		this.garbageCollections = Collections.unmodifiableMap(new LinkedHashMap<String, long[]>(garbageCollections));
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * @return the number of requests rejected because of invalid zip code ranges
+	 */
+	public long getInvalidCount() {
+		return invalidCount;
+	}
+
+	/**
+	 * @return the number of requests that failed with an I/O error
+	 */
+	public long getFailedCount() {
+		return failedCount;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public LatencySnapshot getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return the number of requests completed per second
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : requestCount * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * @return the time spent in garbage collection during the test in milliseconds, all collectors together
+	 */
+	public long getGarbageCollectionMillis() {
+		long millis = 0;
+		for (long[] garbageCollection : garbageCollections.values()) {
+			millis += garbageCollection[1];
+		}
+		return millis;
+	}
+
+	/**
+	 * @return the report as a single line JSON object
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"seed\":").append(seed)
+				.append(",\"threads\":").append(threads)
+				.append(",\"targetRate\":").append(format(targetRate))
+				.append(",\"requests\":").append(requestCount)
+				.append(",\"invalid\":").append(invalidCount)
+				.append(",\"failed\":").append(failedCount)
+				.append(",\"elapsedSeconds\":").append(format(elapsedNanos / 1e9))
+				.append(",\"throughput\":").append(format(getThroughput()))
+				.append(",\"latencyMicros\":{\"mean\":").append(format(latency.getMeanNanos() / 1e3))
+				.append(",\"p50\":").append(format(latency.getP50Nanos() / 1e3))
+				.append(",\"p99\":").append(format(latency.getP99Nanos() / 1e3))
+				.append(",\"p999\":").append(format(latency.getP999Nanos() / 1e3))
+				.append(",\"max\":").append(format(latency.getMaxNanos() / 1e3))
+				.append("},\"gc\":[");
+		String separator = "";
+		for (Map.Entry<String, long[]> garbageCollection : garbageCollections.entrySet()) {
+			sb.append(separator).append("{\"name\":\"").append(garbageCollection.getKey().replace("\"", "\\\""))
+					.append("\",\"count\":").append(garbageCollection.getValue()[0])
+					.append(",\"timeMillis\":").append(garbageCollection.getValue()[1]).append('}');
+			separator = ",";
+		}
+		return sb.append("]}").toString();
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.1f", value);
+	}
+}
@@ -0,0 +1,21 @@
+package com.hp.zipcode.loadtest;
+
+import java.io.IOException;
+
+/**
+ * The system a load test sends its requests to.
+ *
+ * @author Huy Pham
+ *
+ */
+public interface LoadTestTarget {
+
+	/**
+	 * Merge the zip code ranges of a request, implementations are called by many threads at once.
+	 *
+	 * @param zipCodeRanges	the zip code ranges
+	 * @return true when the ranges are merged, false when they are rejected as invalid
+	 * @throws IOException when the request fails
+	 */
+	boolean send(String zipCodeRanges) throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.hp.zipcode.loadtest;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ * Sends the requests of a load test to a ZipCodeService of the same JVM.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ServiceLoadTestTarget implements LoadTestTarget {
+	private final ZipCodeService zipCodeService;
+
+	public ServiceLoadTestTarget(ZipCodeService zipCodeService) {
+		this.zipCodeService = zipCodeService;
+	}
+
+	@Override
+	public boolean send(String zipCodeRanges) {
+		try {
+			zipCodeService.mergeZipCodeRanges(zipCodeRanges);
+			return true;
+		} catch (InvalidZipCodeRangeException e) {
+			return false;
+		}
+	}
+}
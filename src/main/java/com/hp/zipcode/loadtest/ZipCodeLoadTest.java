@@ -0,0 +1,291 @@
+package com.hp.zipcode.loadtest;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.hp.zipcode.metrics.LatencyHistogram;
+import com.hp.zipcode.metrics.LatencySnapshot;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ * Load test sending generated requests to a ZipCodeService or a ZipCodeHttpServer from many threads.
+ *
+ * The requests are generated from the seed before the test starts, so the generator does not weigh on
+ * the measures and two runs with the same options send the same requests.
+ * With a target rate, the requests are scheduled at fixed intervals and their latency is measured from
+ * their scheduled time, so a stall of the target also counts for the requests that could not be sent
+ * during the stall. Without a target rate every thread sends its next request as soon as the previous
+ * one completes.
+ *
+ * EXAMPLE:
+ * java com.hp.zipcode.loadtest.ZipCodeLoadTest --threads 8 --rate 20000 --duration 30 --malformed-rate 0.01
+ * prints the report as JSON on the console.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeLoadTest {
+	private final long seed;
+	private final int threads;
+	private final double targetRate;
+	private final long durationNanos;
+	private final long warmupNanos;
+	private final String[] requests;
+	private final LoadTestTarget target;
+
+	private ZipCodeLoadTest(Builder builder) {
+		this.seed = builder.seed;
+		this.threads = builder.threads;
+		this.targetRate = builder.targetRate;
+		this.durationNanos = TimeUnit.MILLISECONDS.toNanos(builder.durationMillis);
+		this.warmupNanos = TimeUnit.MILLISECONDS.toNanos(builder.warmupMillis);
+		this.requests = new ZipCodeWorkloadGenerator(builder.seed, builder.rangesPerRequest, builder.maxRangeLength,
+				builder.overlapRatio, builder.malformedRate).nextRequests(builder.requestPoolSize);
+		this.target = builder.target != null ? builder.target : new ServiceLoadTestTarget(new ZipCodeService());
+	}
+
+	/**
+	 * Run the warmup then the measured phase.
+	 *
+	 * @return the report of the measured phase
+	 * @throws InterruptedException when interrupted while waiting for the threads
+	 */
+	public LoadTestReport run() throws InterruptedException {
+		if (warmupNanos > 0) {
+			runPhase(warmupNanos, new Phase());
+		}
+
+		Map<String, long[]> garbageCollectionsBefore = getGarbageCollections();
+		Phase phase = new Phase();
+		long elapsedNanos = runPhase(durationNanos, phase);
+		Map<String, long[]> garbageCollections = getGarbageCollections();
+		for (Map.Entry<String, long[]> garbageCollection : garbageCollections.entrySet()) {
+			long[] before = garbageCollectionsBefore.get(garbageCollection.getKey());
+			if (before != null) {
+				garbageCollection.getValue()[0] -= before[0];
+				garbageCollection.getValue()[1] -= before[1];
+			}
+		}
+
+		return new LoadTestReport(seed, threads, targetRate, phase.latencyHistogram.getCount(), phase.invalidCount.sum(),
+				phase.failedCount.sum(), elapsedNanos, new LatencySnapshot(phase.latencyHistogram), garbageCollections);
+	}
+
+	/**
+	 * Send requests from all the threads until the end of the phase.
+	 *
+	 * @return the duration of the phase in nanoseconds
+	 */
+	private long runPhase(long phaseNanos, Phase phase) throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		long end = start + phaseNanos;
+		long intervalNanos = targetRate > 0 ? (long) (1e9 / targetRate) : 0;
+		AtomicLong sequence = new AtomicLong();
+		for (int i = 0; i < threads; i++) {
+			executorService.execute(() -> {
+				while (true) {
+					long index = sequence.getAndIncrement();
+					long scheduled = intervalNanos > 0 ? start + index * intervalNanos : System.nanoTime();
+					if (scheduled >= end || Thread.currentThread().isInterrupted()) {
+						return;
+					}
+					//wait for the scheduled time of the request
+					for (long wait = scheduled - System.nanoTime(); wait > 0; wait = scheduled - System.nanoTime()) {
+						LockSupport.parkNanos(wait);
+					}
+					try {
+						if (!target.send(requests[(int) (index % requests.length)])) {
+							phase.invalidCount.increment();
+						}
+					} catch (IOException e) {
+						phase.failedCount.increment();
+					}
+					phase.latencyHistogram.record(System.nanoTime() - scheduled);
+				}
+			});
+		}
+		executorService.shutdown();
+		if (!executorService.awaitTermination(phaseNanos + TimeUnit.MINUTES.toNanos(1), TimeUnit.NANOSECONDS)) {
+			executorService.shutdownNow();
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * @return the number of collections then their time in milliseconds by collector since the JVM started
+	 */
+	private static Map<String, long[]> getGarbageCollections() {
+		Map<String, long[]> garbageCollections = new LinkedHashMap<String, long[]>();
+		List<GarbageCollectorMXBean> garbageCollectorMXBeans = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean garbageCollectorMXBean : garbageCollectorMXBeans) {
+			garbageCollections.put(garbageCollectorMXBean.getName(), new long[] {
+					Math.max(garbageCollectorMXBean.getCollectionCount(), 0),
+					Math.max(garbageCollectorMXBean.getCollectionTime(), 0) });
+		}
+		return garbageCollections;
+	}
+
+	/**
+	 * The counters of a phase.
+	 */
+	private static final class Phase {
+		private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+		private final LongAdder invalidCount = new LongAdder();
+		private final LongAdder failedCount = new LongAdder();
+	}
+
+	/**
+	 * Builder of a load test, every option has a default.
+	 */
+	public static final class Builder {
+		private long seed = 42L;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private double targetRate;
+		private long durationMillis = 10000;
+		private long warmupMillis = 2000;
+		private int rangesPerRequest = 100;
+		private int maxRangeLength = 100;
+		private double overlapRatio = 0.2;
+		private double malformedRate = 0.01;
+		private int requestPoolSize = 1000;
+		private LoadTestTarget target;
+
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public Builder threads(int threads) {
+			if (threads < 1) {
+				throw new IllegalArgumentException("A load test needs at least one thread.");
+			}
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param targetRate	the requests per second of all the threads together, 0 to send as fast as possible
+		 */
+		public Builder targetRate(double targetRate) {
+			this.targetRate = targetRate;
+			return this;
+		}
+
+		public Builder duration(long duration, TimeUnit unit) {
+			this.durationMillis = unit.toMillis(duration);
+			return this;
+		}
+
+		public Builder warmup(long warmup, TimeUnit unit) {
+			this.warmupMillis = unit.toMillis(warmup);
+			return this;
+		}
+
+		public Builder rangesPerRequest(int rangesPerRequest) {
+			this.rangesPerRequest = rangesPerRequest;
+			return this;
+		}
+
+		public Builder maxRangeLength(int maxRangeLength) {
+			this.maxRangeLength = maxRangeLength;
+			return this;
+		}
+
+		public Builder overlapRatio(double overlapRatio) {
+			this.overlapRatio = overlapRatio;
+			return this;
+		}
+
+		public Builder malformedRate(double malformedRate) {
+			this.malformedRate = malformedRate;
+			return this;
+		}
+
+		/**
+		 * @param requestPoolSize	the number of distinct requests generated then sent in turn
+		 */
+		public Builder requestPoolSize(int requestPoolSize) {
+			if (requestPoolSize < 1) {
+				throw new IllegalArgumentException("A load test needs at least one request.");
+			}
+			this.requestPoolSize = requestPoolSize;
+			return this;
+		}
+
+		/**
+		 * @param target	the target of the requests, a ZipCodeService by default
+		 */
+		public Builder target(LoadTestTarget target) {
+			this.target = target;
+			return this;
+		}
+
+		public ZipCodeLoadTest build() {
+			return new ZipCodeLoadTest(this);
+		}
+	}
+
+	/**
+	 * Run a load test and print its report as JSON.
+	 *
+	 * @param args	--seed, --threads, --rate (requests per second), --duration and --warmup (seconds),
+	 * --ranges, --max-length, --overlap, --malformed-rate, --pool and --url of a ZipCodeHttpServer
+	 * @throws IOException when the URL is malformed
+	 * @throws InterruptedException when interrupted while waiting for the threads
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Builder builder = new Builder();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "--seed":
+				builder.seed(Long.parseLong(value));
+				break;
+			case "--threads":
+				builder.threads(Integer.parseInt(value));
+				break;
+			case "--rate":
+				builder.targetRate(Double.parseDouble(value));
+				break;
+			case "--duration":
+				builder.duration(Long.parseLong(value), TimeUnit.SECONDS);
+				break;
+			case "--warmup":
+				builder.warmup(Long.parseLong(value), TimeUnit.SECONDS);
+				break;
+			case "--ranges":
+				builder.rangesPerRequest(Integer.parseInt(value));
+				break;
+			case "--max-length":
+				builder.maxRangeLength(Integer.parseInt(value));
+				break;
+			case "--overlap":
+				builder.overlapRatio(Double.parseDouble(value));
+				break;
+			case "--malformed-rate":
+				builder.malformedRate(Double.parseDouble(value));
+				break;
+			case "--pool":
+				builder.requestPoolSize(Integer.parseInt(value));
+				break;
+			case "--url":
+				builder.target(new HttpLoadTestTarget(value));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		System.out.println(builder.build().run().toJson());
+	}
+}
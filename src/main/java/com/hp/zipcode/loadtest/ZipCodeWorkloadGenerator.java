@@ -0,0 +1,149 @@
+package com.hp.zipcode.loadtest;
+
+import java.util.Random;
+
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.service.ZipCodeRangeParser;
+
+/**
+ * Generates production like requests of zip code ranges in the bracket format.
+ *
+ * The lower bounds are clustered by state: a state is picked with a weight close to its population,
+ * then one of its 3 digits zip code prefixes, so the ranges are as dense as the real zip codes instead of
+ * uniform over the domain. A range overlaps the previous range of the request with the overlap ratio,
+ * and a request holds one malformed range with the malformed rate.
+ * The same parameters and seed always generate the same requests.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeWorkloadGenerator {
+	//the first and last 3 digits prefixes of a state then its weight
+	private static final int[][] STATES = {
+			{ 900, 961, 39 }, //CA
+			{ 750, 799, 29 }, //TX
+			{ 320, 349, 22 }, //FL
+			{ 100, 149, 20 }, //NY
+			{ 150, 196, 13 }, //PA
+			{ 600, 629, 13 }, //IL
+			{ 430, 458, 12 }, //OH
+			{ 300, 319, 11 }, //GA
+			{ 270, 289, 10 }, //NC
+			{ 480, 499, 10 }, //MI
+			{ 70, 89, 9 }, //NJ
+			{ 220, 246, 9 }, //VA
+			{ 980, 994, 8 }, //WA
+			{ 850, 865, 7 }, //AZ
+			{ 10, 27, 7 }, //MA
+			{ 550, 567, 6 }, //MN
+			{ 800, 816, 6 }, //CO
+			{ 5, 5, 1 }, //NY IRS
+	};
+
+	//the malformed ranges, {0} and {1} are valid bounds
+	private static final String[] MALFORMED_RANGES = {
+			"[{1},{0}]", //lower bound greater than upper bound
+			"[{0};{1}]", //wrong delimiter
+			"[{0}]", //missing upper bound
+			"[9{0},{1}]", //6 digits zip code
+			"[{0},ABCDE]", //not a number
+	};
+
+	private static final int TOTAL_WEIGHT;
+
+	static {
+		int totalWeight = 0;
+		for (int[] state : STATES) {
+			totalWeight += state[2];
+		}
+		TOTAL_WEIGHT = totalWeight;
+	}
+
+	private final Random random;
+	private final int rangesPerRequest;
+	private final int maxRangeLength;
+	private final double overlapRatio;
+	private final double malformedRate;
+
+	/**
+	 * @param seed	the seed of the random generator
+	 * @param rangesPerRequest	the number of ranges of a request
+	 * @param maxRangeLength	the highest number of zip codes of a range
+	 * @param overlapRatio	the probability that a range overlaps the previous range of the request, from 0 to 1
+	 * @param malformedRate	the probability that a request holds a malformed range, from 0 to 1
+	 */
+	public ZipCodeWorkloadGenerator(long seed, int rangesPerRequest, int maxRangeLength, double overlapRatio, double malformedRate) {
+		if (rangesPerRequest < 1 || maxRangeLength < 1) {
+			throw new IllegalArgumentException("A request holds at least one range of at least one zip code.");
+		}
+		this.random = new Random(seed);
+		this.rangesPerRequest = rangesPerRequest;
+		this.maxRangeLength = maxRangeLength;
+		this.overlapRatio = overlapRatio;
+		this.malformedRate = malformedRate;
+	}
+
+	/**
+	 * Generate the next request.
+	 *
+	 * @return the zip code ranges of the request separated by spaces
+	 */
+	public String nextRequest() {
+		StringBuilder sb = new StringBuilder(rangesPerRequest * 14);
+		int malformedIndex = random.nextDouble() < malformedRate ? random.nextInt(rangesPerRequest) : -1;
+		int lowerBound = 0;
+		int upperBound = -1;
+		for (int i = 0; i < rangesPerRequest; i++) {
+			if (upperBound >= 0 && random.nextDouble() < overlapRatio) {
+				//start inside the previous range
+				lowerBound += random.nextInt(upperBound - lowerBound + 1);
+			} else {
+				int[] state = nextState();
+				int prefix = state[0] + random.nextInt(state[1] - state[0] + 1);
+				lowerBound = prefix * 100 + random.nextInt(100);
+			}
+			upperBound = Math.min(ZipCodeRange.MAX_ZIP_CODE, lowerBound + random.nextInt(maxRangeLength));
+
+			if (i > 0) {
+				sb.append(' ');
+			}
+			if (i == malformedIndex) {
+				//the first bound is lower than the second one so that swapping them is invalid
+				int firstBound = Math.min(lowerBound, ZipCodeRange.MAX_ZIP_CODE - 1);
+				int secondBound = Math.max(upperBound, firstBound + 1);
+				sb.append(MALFORMED_RANGES[random.nextInt(MALFORMED_RANGES.length)]
+						.replace("{0}", ZipCodeRangeParser.formatZipCode(firstBound))
+						.replace("{1}", ZipCodeRangeParser.formatZipCode(secondBound)));
+			} else {
+				sb.append('[').append(ZipCodeRangeParser.formatZipCode(lowerBound)).append(',')
+						.append(ZipCodeRangeParser.formatZipCode(upperBound)).append(']');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Generate requests.
+	 *
+	 * @param requestCount	the number of requests
+	 * @return the requests
+	 */
+	public String[] nextRequests(int requestCount) {
+		String[] requests = new String[requestCount];
+		for (int i = 0; i < requestCount; i++) {
+			requests[i] = nextRequest();
+		}
+		return requests;
+	}
+
+	private int[] nextState() {
+		int weight = random.nextInt(TOTAL_WEIGHT);
+		for (int[] state : STATES) {
+			weight -= state[2];
+			if (weight < 0) {
+				return state;
+			}
+		}
+		throw new IllegalStateException();
+	}
+}
@@ -0,0 +1,137 @@
+package com.hp.zipcode.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies in nanoseconds, with the log linear buckets of HdrHistogram.
+ *
+ * Values are grouped by power of two, every power of two being split in 16 sub buckets, so a recorded
+ * value is known within 1/16 (6%) whatever its magnitude, from nanoseconds to hours, in 960 buckets.
+ * Every bucket is a LongAdder, so concurrent recordings do not contend on the same memory word.
+ * Percentiles are computed when they are read, from the highest value of the bucket they fall in.
+ *
+ * @author Huy Pham
+ *
+ */
+public class LatencyHistogram {
+	//the number of sub buckets of a power of two
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+	//the powers of two of a positive long that need sub buckets, 4 to 62
+	private static final int BUCKET_COUNT = (Long.SIZE - 1 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param nanos	the latency in nanoseconds, negative latencies are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		buckets[bucketIndex(value)].increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * @return the number of recorded latencies
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the highest recorded latency in nanoseconds, 0 when nothing has been recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return the mean of the recorded latencies in nanoseconds, 0 when nothing has been recorded
+	 */
+	public double getMean() {
+		long recorded = count.sum();
+		return recorded == 0 ? 0 : (double) sum.sum() / recorded;
+	}
+
+	/**
+	 * Get the latency that the given percentage of the recorded latencies are lower than or equal to.
+	 * Recordings made while the percentile is computed may or may not be taken into account.
+	 *
+	 * @param percentile	the percentage, from 0 to 100
+	 * @return the latency in nanoseconds, within 6%, 0 when nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets[i].sum();
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				//the highest value of the bucket, but not above the highest recorded value
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Forget all the recorded latencies, recordings made at the same time may be partly kept.
+	 */
+	public void reset() {
+		for (LongAdder bucket : buckets) {
+			bucket.reset();
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * The values below 16 have their own bucket, above the highest bit selects the power of two
+	 * and the next 4 bits the sub bucket.
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) & SUB_BUCKET_MASK);
+	}
+
+	/**
+	 * The highest value falling in a bucket.
+	 */
+	static long highestValue(int bucketIndex) {
+		if (bucketIndex < SUB_BUCKET_COUNT) {
+			return bucketIndex;
+		}
+		int shift = bucketIndex / SUB_BUCKET_COUNT - 1;
+		long lowestValue = (long) (SUB_BUCKET_COUNT + (bucketIndex & SUB_BUCKET_MASK)) << shift;
+		return lowestValue + (1L << shift) - 1;
+	}
+}
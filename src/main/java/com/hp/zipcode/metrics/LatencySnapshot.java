@@ -0,0 +1,56 @@
+package com.hp.zipcode.metrics;
+
+/**
+ * The count, mean, percentiles and max of the latencies of a phase at a point in time,
+ * published by JMX as composite data.
+ *
+ * @author Huy Pham
+ *
+ */
+public class LatencySnapshot {
+	private final long count;
+	private final double meanNanos;
+	private final long p50Nanos;
+	private final long p99Nanos;
+	private final long p999Nanos;
+	private final long maxNanos;
+
+	public LatencySnapshot(LatencyHistogram latencyHistogram) {
+		this.count = latencyHistogram.getCount();
+		this.meanNanos = latencyHistogram.getMean();
+		this.p50Nanos = latencyHistogram.getValueAtPercentile(50);
+		this.p99Nanos = latencyHistogram.getValueAtPercentile(99);
+		this.p999Nanos = latencyHistogram.getValueAtPercentile(99.9);
+		this.maxNanos = latencyHistogram.getMax();
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMeanNanos() {
+		return meanNanos;
+	}
+
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	public long getP999Nanos() {
+		return p999Nanos;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + " mean=" + (long) meanNanos + "ns p50=" + p50Nanos + "ns p99=" + p99Nanos
+				+ "ns p999=" + p999Nanos + "ns max=" + maxNanos + "ns";
+	}
+}
@@ -0,0 +1,263 @@
+package com.hp.zipcode.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.hp.zipcode.exception.ZipCodeRangeErrorKind;
+
+/**
+ * Per phase metrics of the merges of a ZipCodeService: how many merges, how many ranges in and out,
+ * how many errors of each kind, how many merges each merge strategy did and the latency histograms
+ * of the parse and merge phases.
+ *
+ * Recording is lock free, every counter is a LongAdder, and it is disabled by default: a disabled
+ * merge costs one volatile read, it does not even read the clock. The metrics can be published
+ * as a platform MXBean and enabled or disabled at runtime from any JMX console.
+ *
+ * A merge is recorded as follows, the start time being passed from phase to phase:
+ *
+ * long start = metrics.start();
+ * ...parse the ranges...
+ * long parsed = metrics.recordParse(start, inputRangeCount);
+ * ...merge the ranges...
+ * metrics.recordMerge(start, parsed, outputRangeCount);
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeServiceMetrics implements ZipCodeServiceMetricsMXBean {
+	//the domain of the object names of the metrics
+	public static final String OBJECT_NAME_DOMAIN = "com.hp.zipcode";
+
+	//the start time of a merge that is not recorded
+	public static final long NOT_RECORDED = Long.MIN_VALUE;
+
+	private volatile boolean enabled;
+
+	private final LongAdder mergeCount = new LongAdder();
+	private final LongAdder inputRangeCount = new LongAdder();
+	private final LongAdder outputRangeCount = new LongAdder();
+
+	//the number of errors by kind ordinal
+	private final LongAdder[] errorCounts = new LongAdder[ZipCodeRangeErrorKind.values().length];
+
+	//the number of merges by name of the merge strategy
+	private final ConcurrentMap<String, LongAdder> mergeStrategyCounts = new ConcurrentHashMap<String, LongAdder>();
+
+	private final LatencyHistogram parseLatency = new LatencyHistogram();
+	private final LatencyHistogram mergeLatency = new LatencyHistogram();
+	private final LatencyHistogram totalLatency = new LatencyHistogram();
+
+	public ZipCodeServiceMetrics() {
+		for (int i = 0; i < errorCounts.length; i++) {
+			errorCounts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Register the metrics to the platform MBean server.
+	 *
+	 * @param name	the name telling the services apart, e.g. server
+	 * @return the object name of the metrics, com.hp.zipcode:type=ZipCodeServiceMetrics,name={name}
+	 * @throws JMException when the metrics cannot be registered, e.g. the name is already taken
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = getObjectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	/**
+	 * Unregister the metrics from the platform MBean server.
+	 *
+	 * @param name	the name the metrics have been registered with
+	 * @throws JMException when the metrics are not registered
+	 */
+	public void unregister(String name) throws JMException {
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		mBeanServer.unregisterMBean(getObjectName(name));
+	}
+
+	private static ObjectName getObjectName(String name) throws JMException {
+		return new ObjectName(OBJECT_NAME_DOMAIN + ":type=ZipCodeServiceMetrics,name=" + ObjectName.quote(name));
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Start recording a merge.
+	 *
+	 * @return the start time of the merge, NOT_RECORDED when the metrics are disabled
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : NOT_RECORDED;
+	}
+
+	/**
+	 * Record the end of the parse phase.
+	 *
+	 * @param start	the start time of the merge
+	 * @param inputRanges	the number of valid ranges parsed
+	 * @return the end time of the parse phase, NOT_RECORDED when the merge is not recorded
+	 */
+	public long recordParse(long start, int inputRanges) {
+		if (start == NOT_RECORDED) {
+			return NOT_RECORDED;
+		}
+		long now = System.nanoTime();
+		parseLatency.record(now - start);
+		inputRangeCount.add(inputRanges);
+		return now;
+	}
+
+	/**
+	 * Record the end of the merge phase and of the merge.
+	 *
+	 * @param start	the start time of the merge
+	 * @param parsed	the end time of the parse phase, NOT_RECORDED when the phases are not told apart
+	 * @param outputRanges	the number of merged ranges
+	 */
+	public void recordMerge(long start, long parsed, int outputRanges) {
+		if (start == NOT_RECORDED) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (parsed != NOT_RECORDED) {
+			mergeLatency.record(now - parsed);
+		}
+		totalLatency.record(now - start);
+		outputRangeCount.add(outputRanges);
+		mergeCount.increment();
+	}
+
+	/**
+	 * Record a merge that failed.
+	 *
+	 * @param start	the start time of the merge
+	 * @param kind	the kind of invalid zip code range
+	 */
+	public void recordError(long start, ZipCodeRangeErrorKind kind) {
+		if (start == NOT_RECORDED) {
+			return;
+		}
+		totalLatency.record(System.nanoTime() - start);
+		errorCounts[kind.ordinal()].increment();
+		mergeCount.increment();
+	}
+
+	/**
+	 * Record an invalid range skipped by a lenient merge.
+	 *
+	 * @param start	the start time of the merge
+	 * @param kind	the kind of invalid zip code range
+	 */
+	public void recordSkippedError(long start, ZipCodeRangeErrorKind kind) {
+		if (start != NOT_RECORDED) {
+			errorCounts[kind.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * Record the strategy picked to merge the ranges.
+	 *
+	 * @param start	the start time of the merge
+	 * @param mergeStrategy	the name of the merge strategy
+	 */
+	public void recordMergeStrategy(long start, String mergeStrategy) {
+		if (start != NOT_RECORDED) {
+			mergeStrategyCounts.computeIfAbsent(mergeStrategy, name -> new LongAdder()).increment();
+		}
+	}
+
+	@Override
+	public long getMergeCount() {
+		return mergeCount.sum();
+	}
+
+	@Override
+	public long getInputRangeCount() {
+		return inputRangeCount.sum();
+	}
+
+	@Override
+	public long getOutputRangeCount() {
+		return outputRangeCount.sum();
+	}
+
+	/**
+	 * @param kind	the kind of invalid zip code range
+	 * @return the number of invalid ranges of this kind, failing a merge or skipped by a lenient merge
+	 */
+	public long getErrorCount(ZipCodeRangeErrorKind kind) {
+		return errorCounts[kind.ordinal()].sum();
+	}
+
+	@Override
+	public long getExtractErrorCount() {
+		return getErrorCount(ZipCodeRangeErrorKind.EXTRACT);
+	}
+
+	@Override
+	public long getValidationErrorCount() {
+		return getErrorCount(ZipCodeRangeErrorKind.VALIDATION);
+	}
+
+	@Override
+	public long getOutOfBoundErrorCount() {
+		return getErrorCount(ZipCodeRangeErrorKind.OUT_OF_BOUND);
+	}
+
+	@Override
+	public Map<String, Long> getMergeStrategyCounts() {
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> mergeStrategyCount : mergeStrategyCounts.entrySet()) {
+			counts.put(mergeStrategyCount.getKey(), mergeStrategyCount.getValue().sum());
+		}
+		return counts;
+	}
+
+	@Override
+	public LatencySnapshot getParseLatency() {
+		return new LatencySnapshot(parseLatency);
+	}
+
+	@Override
+	public LatencySnapshot getMergeLatency() {
+		return new LatencySnapshot(mergeLatency);
+	}
+
+	@Override
+	public LatencySnapshot getTotalLatency() {
+		return new LatencySnapshot(totalLatency);
+	}
+
+	@Override
+	public void reset() {
+		mergeCount.reset();
+		inputRangeCount.reset();
+		outputRangeCount.reset();
+		for (LongAdder errorCount : errorCounts) {
+			errorCount.reset();
+		}
+		mergeStrategyCounts.clear();
+		parseLatency.reset();
+		mergeLatency.reset();
+		totalLatency.reset();
+	}
+}
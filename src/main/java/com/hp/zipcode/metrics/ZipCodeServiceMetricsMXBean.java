@@ -0,0 +1,79 @@
+package com.hp.zipcode.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the ZipCodeService metrics.
+ *
+ * @author Huy Pham
+ *
+ */
+public interface ZipCodeServiceMetricsMXBean {
+
+	/**
+	 * @return whether the merges are recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Start or stop recording the merges, the recorded metrics are kept.
+	 *
+	 * @param enabled	whether the merges are recorded
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return the number of merges, successful or not
+	 */
+	long getMergeCount();
+
+	/**
+	 * @return the number of valid ranges parsed from the inputs
+	 */
+	long getInputRangeCount();
+
+	/**
+	 * @return the number of merged ranges returned
+	 */
+	long getOutputRangeCount();
+
+	/**
+	 * @return the number of failures to extract the zip code ranges
+	 */
+	long getExtractErrorCount();
+
+	/**
+	 * @return the number of ranges that are not made of two 5 digits zip codes, failing a merge or skipped
+	 */
+	long getValidationErrorCount();
+
+	/**
+	 * @return the number of ranges whose lower bound is greater than the upper bound, failing a merge or skipped
+	 */
+	long getOutOfBoundErrorCount();
+
+	/**
+	 * @return the number of merges by merge strategy, the one picked by the adaptive strategy included
+	 */
+	Map<String, Long> getMergeStrategyCounts();
+
+	/**
+	 * @return the latencies of extracting, validating and transforming the ranges
+	 */
+	LatencySnapshot getParseLatency();
+
+	/**
+	 * @return the latencies of merging the validated ranges
+	 */
+	LatencySnapshot getMergeLatency();
+
+	/**
+	 * @return the latencies of the whole merges, successful or not
+	 */
+	LatencySnapshot getTotalLatency();
+
+	/**
+	 * Forget all the recorded metrics.
+	 */
+	void reset();
+}
@@ -0,0 +1,142 @@
+package com.hp.zipcode.model;
+
+import java.util.Arrays;
+
+/**
+ * A bitmap with one bit for every 5 digits zip code from 00000 to 99999.
+ *
+ * Ranges are marked with word level fills and the runs of marked zip codes are the merged ranges,
+ * so merging does not need any sort and costs O(number of ranges + 1563 words).
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeBitmap {
+	//the number of 64 bits words needed to hold every zip code
+	public static final int WORD_COUNT = (ZipCodeRange.MAX_ZIP_CODE >>> 6) + 1;
+
+	private final long[] words = new long[WORD_COUNT];
+
+	/**
+	 * Mark all the zip codes of the range.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 */
+	public void set(int lowerBound, int upperBound) {
+		setRange(words, lowerBound, upperBound);
+	}
+
+	/**
+	 * Check whether the zip code is marked.
+	 *
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is marked, false otherwise or when it is not a 5 digits zip code
+	 */
+	public boolean contains(int zipCode) {
+		if (zipCode < ZipCodeRange.MIN_ZIP_CODE || zipCode > ZipCodeRange.MAX_ZIP_CODE) {
+			return false;
+		}
+		return (words[zipCode >>> 6] & (1L << zipCode)) != 0;
+	}
+
+	/**
+	 * @return a copy of the words of the bitmap, bit i of word w is the zip code 64 * w + i
+	 */
+	public long[] toLongArray() {
+		return words.clone();
+	}
+
+	/**
+	 * Unmark all the zip codes.
+	 */
+	public void clear() {
+		Arrays.fill(words, 0L);
+	}
+
+	/**
+	 * Scan the runs of marked zip codes in ascending order, every run is a merged range.
+	 * Adjacent ranges such as [10000,10001] [10002,10003] form a single run.
+	 *
+	 * @param consumer	receives the lower and upper bound of every run
+	 */
+	public void forEachRun(ZipCodeRangeConsumer consumer) {
+		forEachRun(words, 0, WORD_COUNT, 0, consumer);
+	}
+
+	/**
+	 * Scan the runs of marked zip codes in ascending order, only the words holding the zip codes from
+	 * lowerBound to upperBound are scanned so every marked zip code has to be between them.
+	 *
+	 * @param lowerBound	the lowest marked zip code
+	 * @param upperBound	the highest marked zip code
+	 * @param consumer	receives the lower and upper bound of every run
+	 */
+	public void forEachRun(int lowerBound, int upperBound, ZipCodeRangeConsumer consumer) {
+		forEachRun(words, lowerBound >>> 6, (upperBound >>> 6) + 1, 0, consumer);
+	}
+
+	/**
+	 * Set the bits of a range in words of 64 bits, bit i of word w being the value 64 * w + i.
+	 * The bitmaps of the zip codes and of the ZIP+4 codes share it.
+	 *
+	 * @param words	the words
+	 * @param lowerBound	the first bit to set
+	 * @param upperBound	the last bit to set
+	 */
+	public static void setRange(long[] words, int lowerBound, int upperBound) {
+		int firstWord = lowerBound >>> 6;
+		int lastWord = upperBound >>> 6;
+		//shifts only use the lowest 6 bits of the bounds
+		long firstMask = -1L << lowerBound;
+		long lastMask = -1L >>> ~upperBound;
+
+		if (firstWord == lastWord) {
+			words[firstWord] |= firstMask & lastMask;
+		} else {
+			words[firstWord] |= firstMask;
+			Arrays.fill(words, firstWord + 1, lastWord, -1L);
+			words[lastWord] |= lastMask;
+		}
+	}
+
+	/**
+	 * Scan the runs of set bits of words of 64 bits in ascending order, from word fromWord (inclusive)
+	 * to word toWord (exclusive). A run still set at the end of toWord ends there.
+	 *
+	 * @param words	the words, bit i of word w being the value base + 64 * w + i
+	 * @param fromWord	the first word to scan
+	 * @param toWord	the word to stop the scan at
+	 * @param base	the value of the first bit of the words
+	 * @param consumer	receives the first and last value of every run
+	 */
+	public static void forEachRun(long[] words, int fromWord, int toWord, int base, ZipCodeRangeConsumer consumer) {
+		int i = fromWord;
+		long word = words[i];
+		while (true) {
+			//skip the unset words
+			while (word == 0) {
+				if (++i == toWord) {
+					return;
+				}
+				word = words[i];
+			}
+			int start = (i << 6) + Long.numberOfTrailingZeros(word);
+
+			//set the bits below the start of the run then skip the fully set words
+			word |= word - 1;
+			while (word == -1L) {
+				if (++i == toWord) {
+					consumer.accept(base + start, base + (toWord << 6) - 1);
+					return;
+				}
+				word = words[i];
+			}
+			int end = (i << 6) + Long.numberOfTrailingZeros(~word);
+			consumer.accept(base + start, base + end - 1);
+
+			//clear the bits of the run
+			word &= word + 1;
+		}
+	}
+}
@@ -7,6 +7,10 @@ package com.hp.zipcode.model;
  *
  */
 public class ZipCodeRange {
+	//the lowest and highest 5 digits zip codes
+	public static final int MIN_ZIP_CODE = 0;
+	public static final int MAX_ZIP_CODE = 99999;
+	
 	private int lowerBound; //the lower bound
 	private int upperBound; //the upper bound
 	
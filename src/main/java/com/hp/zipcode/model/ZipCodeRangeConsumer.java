@@ -0,0 +1,20 @@
+package com.hp.zipcode.model;
+
+/**
+ * Receives the lower and upper bounds of a zip code range as primitive ints,
+ * so ranges can be handed over without creating a ZipCodeRange per range.
+ *
+ * @author Huy Pham
+ *
+ */
+@FunctionalInterface
+public interface ZipCodeRangeConsumer {
+
+	/**
+	 * Accept one zip code range.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 */
+	void accept(int lowerBound, int upperBound);
+}
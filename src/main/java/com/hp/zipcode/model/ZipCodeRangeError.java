@@ -0,0 +1,57 @@
+package com.hp.zipcode.model;
+
+import com.hp.zipcode.exception.ZipCodeRangeErrorKind;
+
+/**
+ * An invalid zip code range skipped by a lenient merge.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeError {
+	private final ZipCodeRangeErrorKind kind;
+	private final long position;
+	private final String text;
+
+	/**
+	 * @param kind	the kind of invalid zip code range
+	 * @param position	the position of the offending text in the input
+	 * @param text	the offending text
+	 */
+	public ZipCodeRangeError(ZipCodeRangeErrorKind kind, long position, String text) {
+		this.kind = kind;
+		this.position = position;
+		this.text = text;
+	}
+
+	public ZipCodeRangeErrorKind getKind() {
+		return kind;
+	}
+
+	public long getPosition() {
+		return position;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof ZipCodeRangeError)) {
+			return false;
+		}
+		ZipCodeRangeError other = (ZipCodeRangeError) obj;
+		return kind == other.kind && position == other.position && text.equals(other.text);
+	}
+
+	@Override
+	public int hashCode() {
+		return (kind.hashCode() * 31 + Long.hashCode(position)) * 31 + text.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return kind + " at " + position + ": " + text;
+	}
+}
@@ -0,0 +1,486 @@
+package com.hp.zipcode.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable set of merged zip code ranges.
+ *
+ * The ranges are sorted in ascending order, they neither overlap nor touch each other
+ * and are packed in a long array, the lower bound in the high 32 bits and the upper bound
+ * in the low 32 bits, so a set costs 8 bytes per range and no object per range.
+ * Union, intersection, difference and symmetric difference of two sets are computed by a single
+ * scan of both sets, and adjacent ranges in the results are merged like in doMergeZipCodeRanges.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeSet {
+	//the set without any range
+	public static final ZipCodeRangeSet EMPTY = new ZipCodeRangeSet(new long[0]);
+
+	private final long[] ranges;
+
+	private ZipCodeRangeSet(long[] ranges) {
+		this.ranges = ranges;
+	}
+
+	/**
+	 * Pack the bounds of a range into a long, packed ranges sort by lower bound then upper bound.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 * @return the packed range
+	 */
+	public static long pack(int lowerBound, int upperBound) {
+		return ((long) lowerBound << 32) | (upperBound & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param range	the packed range
+	 * @return the lower bound of the packed range
+	 */
+	public static int lowerBound(long range) {
+		return (int) (range >>> 32);
+	}
+
+	/**
+	 * @param range	the packed range
+	 * @return the upper bound of the packed range
+	 */
+	public static int upperBound(long range) {
+		return (int) range;
+	}
+
+	/**
+	 * Create a set from packed ranges that are already merged.
+	 *
+	 * @param ranges	the packed ranges, sorted and neither overlapping nor touching each other
+	 * @param size	the number of ranges
+	 * @return the set of ranges
+	 *
+	 * @throws IllegalArgumentException when the ranges are not merged
+	 */
+	public static ZipCodeRangeSet ofMerged(long[] ranges, int size) {
+		Builder builder = new Builder(size);
+		for (int i = 0; i < size; i++) {
+			int lowerBound = lowerBound(ranges[i]);
+			if (builder.size > 0 && lowerBound <= upperBound(builder.ranges[builder.size - 1]) + 1) {
+				throw new IllegalArgumentException("The zip code ranges are not merged.");
+			}
+			builder.add(lowerBound, upperBound(ranges[i]));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return the number of ranges
+	 */
+	public int size() {
+		return ranges.length;
+	}
+
+	public boolean isEmpty() {
+		return ranges.length == 0;
+	}
+
+	/**
+	 * @param index	the index of the range
+	 * @return the lower bound of the range at the given index
+	 */
+	public int getLowerBound(int index) {
+		return lowerBound(ranges[index]);
+	}
+
+	/**
+	 * @param index	the index of the range
+	 * @return the upper bound of the range at the given index
+	 */
+	public int getUpperBound(int index) {
+		return upperBound(ranges[index]);
+	}
+
+	/**
+	 * @param index	the index of the range
+	 * @return a new ZipCodeRange holding the range at the given index
+	 */
+	public ZipCodeRange get(int index) {
+		return new ZipCodeRange(getLowerBound(index), getUpperBound(index));
+	}
+
+	/**
+	 * Check whether a zip code is in one of the ranges with a binary search, O(log n).
+	 *
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is in one of the ranges
+	 */
+	public boolean contains(int zipCode) {
+		//the last range starting at or before the zip code
+		int low = 0;
+		int high = ranges.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (lowerBound(ranges[middle]) <= zipCode) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return high >= 0 && upperBound(ranges[high]) >= zipCode;
+	}
+
+	/**
+	 * Iterate the ranges in ascending order without creating any object.
+	 *
+	 * @param consumer	receives the lower and upper bound of every range
+	 */
+	public void forEach(ZipCodeRangeConsumer consumer) {
+		for (long range : ranges) {
+			consumer.accept(lowerBound(range), upperBound(range));
+		}
+	}
+
+	/**
+	 * Merge this set with another set in a single linear scan, O(n + m).
+	 *
+	 * @param other	the other set
+	 * @return the set of the zip codes that are in this set or in the other set
+	 */
+	public ZipCodeRangeSet union(ZipCodeRangeSet other) {
+		if (other.isEmpty()) {
+			return this;
+		}
+		if (isEmpty()) {
+			return other;
+		}
+
+		Builder builder = new Builder(ranges.length + other.ranges.length);
+		int i = 0;
+		int j = 0;
+		while (i < ranges.length || j < other.ranges.length) {
+			//take the range with the lowest lower bound, the builder merges it with the previous one
+			long range;
+			if (j == other.ranges.length || (i < ranges.length && ranges[i] <= other.ranges[j])) {
+				range = ranges[i++];
+			} else {
+				range = other.ranges[j++];
+			}
+			builder.add(lowerBound(range), upperBound(range));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Merge any number of sets in a single scan, taking the lowest next range of the sets from a heap,
+	 * O(N log k) for N ranges in k sets.
+	 *
+	 * @param zipCodeRangeSets	the sets
+	 * @return the set of the zip codes that are in any of the sets
+	 */
+	public static ZipCodeRangeSet unionAll(Collection<ZipCodeRangeSet> zipCodeRangeSets) {
+		//the non empty sets, and the index of their next range
+		ZipCodeRangeSet[] sets = new ZipCodeRangeSet[zipCodeRangeSets.size()];
+		int[] positions = new int[sets.length];
+		int totalSize = 0;
+		int heapSize = 0;
+		for (ZipCodeRangeSet zipCodeRangeSet : zipCodeRangeSets) {
+			if (!zipCodeRangeSet.isEmpty()) {
+				sets[heapSize++] = zipCodeRangeSet;
+				totalSize += zipCodeRangeSet.size();
+			}
+		}
+		if (heapSize <= 1) {
+			return heapSize == 0 ? EMPTY : sets[0];
+		}
+
+		//a binary min heap of set indexes ordered by the next range of the sets
+		int[] heap = new int[heapSize];
+		for (int i = 0; i < heapSize; i++) {
+			heap[i] = i;
+		}
+		for (int i = heapSize / 2 - 1; i >= 0; i--) {
+			siftDown(heap, heapSize, i, sets, positions);
+		}
+
+		Builder builder = new Builder(totalSize);
+		while (heapSize > 0) {
+			int set = heap[0];
+			long range = sets[set].ranges[positions[set]++];
+			builder.add(lowerBound(range), upperBound(range));
+			if (positions[set] == sets[set].ranges.length) {
+				//the set is exhausted, replace it by the last set of the heap
+				heap[0] = heap[--heapSize];
+			}
+			if (heapSize > 0) {
+				siftDown(heap, heapSize, 0, sets, positions);
+			}
+		}
+		return builder.build();
+	}
+
+	private static void siftDown(int[] heap, int heapSize, int index, ZipCodeRangeSet[] sets, int[] positions) {
+		int set = heap[index];
+		long range = sets[set].ranges[positions[set]];
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			long childRange = sets[heap[child]].ranges[positions[heap[child]]];
+			if (child + 1 < heapSize) {
+				long rightRange = sets[heap[child + 1]].ranges[positions[heap[child + 1]]];
+				if (rightRange < childRange) {
+					child++;
+					childRange = rightRange;
+				}
+			}
+			if (range <= childRange) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = set;
+	}
+
+	/**
+	 * Intersect this set with another set in a single linear scan, O(n + m).
+	 *
+	 * @param other	the other set
+	 * @return the set of the zip codes that are both in this set and in the other set
+	 */
+	public ZipCodeRangeSet intersection(ZipCodeRangeSet other) {
+		return sweep(other, SetOperation.INTERSECTION);
+	}
+
+	/**
+	 * Remove the ranges of another set from this set in a single linear scan, O(n + m).
+	 *
+	 * @param other	the other set
+	 * @return the set of the zip codes that are in this set but not in the other set
+	 */
+	public ZipCodeRangeSet difference(ZipCodeRangeSet other) {
+		return sweep(other, SetOperation.DIFFERENCE);
+	}
+
+	/**
+	 * Compute the symmetric difference of this set and another set in a single linear scan, O(n + m).
+	 *
+	 * @param other	the other set
+	 * @return the set of the zip codes that are either in this set or in the other set, but not in both
+	 */
+	public ZipCodeRangeSet symmetricDifference(ZipCodeRangeSet other) {
+		return sweep(other, SetOperation.SYMMETRIC_DIFFERENCE);
+	}
+
+	/**
+	 * Compute the complement of this set within the zip code domain, O(n).
+	 *
+	 * @return the set of the zip codes from 00000 to 99999 that are not in this set
+	 */
+	public ZipCodeRangeSet complement() {
+		Builder builder = new Builder(ranges.length + 1);
+		int next = ZipCodeRange.MIN_ZIP_CODE;
+		for (long range : ranges) {
+			if (lowerBound(range) > next) {
+				builder.add(next, lowerBound(range) - 1);
+			}
+			next = upperBound(range) + 1;
+		}
+		if (next <= ZipCodeRange.MAX_ZIP_CODE) {
+			builder.add(next, ZipCodeRange.MAX_ZIP_CODE);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Scan the bounds of both sets in ascending order, i.e. the points where a set starts or stops
+	 * covering the zip codes, and keep the zip codes for which the operation is true.
+	 */
+	private ZipCodeRangeSet sweep(ZipCodeRangeSet other, SetOperation operation) {
+		Builder builder = new Builder(ranges.length + other.ranges.length);
+		int boundaryCount = ranges.length * 2;
+		int otherBoundaryCount = other.ranges.length * 2;
+		int i = 0;
+		int j = 0;
+		boolean inThis = false;
+		boolean inOther = false;
+		boolean inResult = false;
+		int lowerBound = 0;
+		while (i < boundaryCount || j < otherBoundaryCount) {
+			int boundary = i < boundaryCount ? boundary(i) : Integer.MAX_VALUE;
+			int otherBoundary = j < otherBoundaryCount ? other.boundary(j) : Integer.MAX_VALUE;
+			int point = Math.min(boundary, otherBoundary);
+			if (boundary == point) {
+				inThis = !inThis;
+				i++;
+			}
+			if (otherBoundary == point) {
+				inOther = !inOther;
+				j++;
+			}
+
+			boolean in = operation.apply(inThis, inOther);
+			if (in != inResult) {
+				if (in) {
+					lowerBound = point;
+				} else {
+					builder.add(lowerBound, point - 1);
+				}
+				inResult = in;
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * The even boundaries are the lower bounds of the ranges, the odd ones are right after the upper bounds.
+	 */
+	private int boundary(int index) {
+		long range = ranges[index >> 1];
+		return (index & 1) == 0 ? lowerBound(range) : upperBound(range) + 1;
+	}
+
+	/**
+	 * Whether a zip code is in the result from whether it is in this set and in the other set.
+	 */
+	private enum SetOperation {
+		INTERSECTION {
+			@Override
+			boolean apply(boolean inThis, boolean inOther) {
+				return inThis && inOther;
+			}
+		},
+		DIFFERENCE {
+			@Override
+			boolean apply(boolean inThis, boolean inOther) {
+				return inThis && !inOther;
+			}
+		},
+		SYMMETRIC_DIFFERENCE {
+			@Override
+			boolean apply(boolean inThis, boolean inOther) {
+				return inThis != inOther;
+			}
+		};
+
+		abstract boolean apply(boolean inThis, boolean inOther);
+	}
+
+	/**
+	 * @return a copy of the packed ranges
+	 */
+	public long[] toPackedArray() {
+		return ranges.clone();
+	}
+
+	/**
+	 * @return the bounds of the ranges in an array of lower and upper bound pairs
+	 */
+	public int[] toBoundsArray() {
+		int[] bounds = new int[ranges.length * 2];
+		for (int i = 0; i < ranges.length; i++) {
+			bounds[2 * i] = lowerBound(ranges[i]);
+			bounds[2 * i + 1] = upperBound(ranges[i]);
+		}
+		return bounds;
+	}
+
+	/**
+	 * @return a new list of ZipCodeRange holding the ranges, changing it does not change this set
+	 */
+	public List<ZipCodeRange> toList() {
+		List<ZipCodeRange> zipCodeRanges = new ArrayList<ZipCodeRange>(ranges.length);
+		for (int i = 0; i < ranges.length; i++) {
+			zipCodeRanges.add(get(i));
+		}
+		return zipCodeRanges;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof ZipCodeRangeSet && Arrays.equals(ranges, ((ZipCodeRangeSet) obj).ranges);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(ranges);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < ranges.length; i++) {
+			if (i > 0) {
+				sb.append(" ");
+			}
+			sb.append("[").append(getLowerBound(i)).append(", ").append(getUpperBound(i)).append("]");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Builds a set from ranges given in ascending order of the lower bound.
+	 * Overlapping and adjacent ranges are merged as they are added.
+	 */
+	public static final class Builder implements ZipCodeRangeConsumer {
+		private long[] ranges;
+		private int size;
+
+		public Builder() {
+			this(16);
+		}
+
+		/**
+		 * @param expectedSize	the expected number of merged ranges
+		 */
+		public Builder(int expectedSize) {
+			ranges = new long[Math.max(expectedSize, 1)];
+		}
+
+		/**
+		 * Add a range, its lower bound cannot be less than the lower bound of the previous range.
+		 *
+		 * @param lowerBound	the lower bound of the range
+		 * @param upperBound	the upper bound of the range
+		 * @return this builder
+		 *
+		 * @throws IllegalArgumentException when the range is not valid or not in ascending order
+		 */
+		public Builder add(int lowerBound, int upperBound) {
+			if (lowerBound < ZipCodeRange.MIN_ZIP_CODE || upperBound > ZipCodeRange.MAX_ZIP_CODE || lowerBound > upperBound) {
+				throw new IllegalArgumentException("Invalid zip code range [" + lowerBound + ", " + upperBound + "].");
+			}
+			if (size > 0) {
+				long last = ranges[size - 1];
+				if (lowerBound < lowerBound(last)) {
+					throw new IllegalArgumentException("The zip code ranges are not sorted by lower bound.");
+				}
+				//same rule as ZipCodeService: merge unless the range starts after the last upper bound + 1
+				if (lowerBound <= upperBound(last) + 1) {
+					ranges[size - 1] = pack(lowerBound(last), Math.max(upperBound(last), upperBound));
+					return this;
+				}
+			}
+			if (size == ranges.length) {
+				ranges = Arrays.copyOf(ranges, size * 2);
+			}
+			ranges[size++] = pack(lowerBound, upperBound);
+			return this;
+		}
+
+		@Override
+		public void accept(int lowerBound, int upperBound) {
+			add(lowerBound, upperBound);
+		}
+
+		/**
+		 * @return the set of the ranges added so far
+		 */
+		public ZipCodeRangeSet build() {
+			return size == 0 ? EMPTY : new ZipCodeRangeSet(Arrays.copyOf(ranges, size));
+		}
+	}
+}
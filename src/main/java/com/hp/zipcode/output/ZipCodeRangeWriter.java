@@ -0,0 +1,237 @@
+package com.hp.zipcode.output;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.hp.zipcode.model.ZipCodeRangeSet;
+import com.hp.zipcode.snapshot.ZipCodeRangeSnapshot;
+
+/**
+ * Buffered writer of merged zip code ranges.
+ *
+ * The bounds are formatted as ASCII digits straight into a reusable byte buffer, without creating
+ * a String or a ZipCodeRange per range, and the buffer is written to the channel only when it is full,
+ * so millions of ranges are written with a few large writes.
+ * In the BINARY format the ranges are collected and written as a single snapshot when the writer is closed.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeWriter implements Closeable, Flushable {
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	//the longest formatted range: [2147483647, 2147483647]
+	private static final int MAX_RANGE_LENGTH = 26;
+
+	/**
+	 * The formats of the merged zip code ranges.
+	 */
+	public enum Format {
+		//[501, 600][94133, 94133], the console format
+		BRACKET,
+		//00501,00600 then 94133,94133 on the next line
+		CSV,
+		//the binary snapshot read by ZipCodeRangeSnapshot
+		BINARY
+	}
+
+	private final WritableByteChannel channel;
+	private final boolean closeChannel;
+	private final Format format;
+
+	private final byte[] buffer;
+	private final ByteBuffer byteBuffer;
+	private int position;
+
+	//the ranges of the snapshot written on close, null unless the format is BINARY
+	private final ZipCodeRangeSet.Builder snapshotRanges;
+
+	/**
+	 * Create a writer to a channel, the channel is not closed by the writer.
+	 *
+	 * @param channel	the channel
+	 * @param format	the format of the ranges
+	 */
+	public ZipCodeRangeWriter(WritableByteChannel channel, Format format) {
+		this(channel, false, format, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a writer to an output stream, the stream is not closed by the writer.
+	 *
+	 * @param outputStream	the output stream
+	 * @param format	the format of the ranges
+	 */
+	public ZipCodeRangeWriter(OutputStream outputStream, Format format) {
+		this(Channels.newChannel(outputStream), false, format, DEFAULT_BUFFER_SIZE);
+	}
+
+	private ZipCodeRangeWriter(WritableByteChannel channel, boolean closeChannel, Format format, int bufferSize) {
+		if (bufferSize < MAX_RANGE_LENGTH) {
+			throw new IllegalArgumentException("The buffer must hold at least one range.");
+		}
+		this.channel = channel;
+		this.closeChannel = closeChannel;
+		this.format = format;
+		this.buffer = new byte[bufferSize];
+		this.byteBuffer = ByteBuffer.wrap(buffer);
+		this.snapshotRanges = format == Format.BINARY ? new ZipCodeRangeSet.Builder() : null;
+	}
+
+	/**
+	 * Create a writer to a file, replacing it if it exists. The file is closed with the writer.
+	 *
+	 * @param file	the file
+	 * @param format	the format of the ranges
+	 * @return the writer
+	 * @throws IOException when the file cannot be opened
+	 */
+	public static ZipCodeRangeWriter toFile(Path file, Format format) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		return new ZipCodeRangeWriter(channel, true, format, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a writer to the standard output, bypassing the synchronized and autoflushing System.out.
+	 * Closing the writer flushes it but keeps the standard output open.
+	 *
+	 * @param format	the format of the ranges
+	 * @return the writer
+	 */
+	public static ZipCodeRangeWriter toStandardOutput(Format format) {
+		//flush what has been printed to System.out so far to keep the order of the output
+		System.out.flush();
+		return new ZipCodeRangeWriter(new FileOutputStream(FileDescriptor.out).getChannel(), false, format,
+				DEFAULT_BUFFER_SIZE);
+	}
+
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * Write all the ranges of a set.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 * @throws IOException when the channel cannot be written
+	 * @throws IllegalArgumentException when the set of the BINARY format starts before the ranges already written
+	 */
+	public void write(ZipCodeRangeSet zipCodeRangeSet) throws IOException {
+		if (format == Format.BINARY) {
+			zipCodeRangeSet.forEach(snapshotRanges);
+			return;
+		}
+		for (int i = 0; i < zipCodeRangeSet.size(); i++) {
+			write(zipCodeRangeSet.getLowerBound(i), zipCodeRangeSet.getUpperBound(i));
+		}
+	}
+
+	/**
+	 * Write one range. In the BINARY format the ranges have to come in ascending order of lower bound,
+	 * overlapping and adjacent ones are merged into the snapshot.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 * @throws IOException when the channel cannot be written
+	 * @throws IllegalArgumentException when a range of the BINARY format is not in ascending order
+	 */
+	public void write(int lowerBound, int upperBound) throws IOException {
+		if (format == Format.BINARY) {
+			snapshotRanges.add(lowerBound, upperBound);
+			return;
+		}
+		if (buffer.length - position < MAX_RANGE_LENGTH) {
+			flush();
+		}
+		switch (format) {
+		case BRACKET:
+			buffer[position++] = '[';
+			position = putInt(lowerBound, 1);
+			buffer[position++] = ',';
+			buffer[position++] = ' ';
+			position = putInt(upperBound, 1);
+			buffer[position++] = ']';
+			break;
+		case CSV:
+			position = putInt(lowerBound, 5);
+			buffer[position++] = ',';
+			position = putInt(upperBound, 5);
+			buffer[position++] = '\n';
+			break;
+		default:
+			throw new IllegalStateException("Unknown format " + format);
+		}
+	}
+
+	/**
+	 * Write the buffered ranges to the channel, the BINARY snapshot is only written on close.
+	 *
+	 * @throws IOException when the channel cannot be written
+	 */
+	@Override
+	public void flush() throws IOException {
+		byteBuffer.clear().limit(position);
+		while (byteBuffer.hasRemaining()) {
+			channel.write(byteBuffer);
+		}
+		position = 0;
+	}
+
+	/**
+	 * Flush the buffered ranges, or write the BINARY snapshot, then close the channel when the writer owns it.
+	 *
+	 * @throws IOException when the channel cannot be written or closed
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (snapshotRanges != null) {
+				ZipCodeRangeSnapshot.write(snapshotRanges.build(), channel);
+			}
+			flush();
+		} finally {
+			if (closeChannel) {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Format a non negative int as ASCII digits at the current position.
+	 *
+	 * @param value	the value
+	 * @param minDigits	the digits to write at least, padded with leading zeros
+	 * @return the position after the last digit
+	 */
+	private int putInt(int value, int minDigits) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative bound: " + value);
+		}
+		int digits = 1;
+		for (int i = value; i >= 10; i /= 10) {
+			digits++;
+		}
+		int end = position + Math.max(digits, minDigits);
+		//write the digits backwards from the end then pad with zeros
+		int i = end;
+		do {
+			buffer[--i] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value != 0);
+		while (i > position) {
+			buffer[--i] = '0';
+		}
+		return end;
+	}
+}
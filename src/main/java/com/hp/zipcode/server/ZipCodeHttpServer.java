@@ -0,0 +1,275 @@
+package com.hp.zipcode.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.JMException;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+import com.hp.zipcode.service.ZipCodeRangeParser;
+import com.hp.zipcode.service.ZipCodeService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long running HTTP server merging zip code ranges, so the JVM starts once instead of once per request.
+ *
+ * POST /merge with the zip code ranges in the body, e.g. [94133,94133] [94200,94299] [94226,94399],
+ * responds with the merged ranges, e.g. [94133,94133] [94200,94399].
+ * POST /contains?zip=94133&amp;zip=94400 with the zip code ranges in the body responds with one
+ * line per zip code, e.g. 94133=true. The ranges of the body are parsed and merged again for every
+ * request, it is not the fast lookup path: lookups against the same ranges should load them once
+ * in a ZipCodeRangeLookup or a ConcurrentZipCodeRangeSet.
+ * Invalid zip code ranges are answered with 400 Bad Request and the error message, bodies larger
+ * than the maximum body size with 413 Request Entity Too Large.
+ *
+ * Request bodies are streamed into the parser instead of being read into a String, and every
+ * request runs on its own virtual thread when the JVM supports them (Java 21 or higher).
+ *
+ * The JDK server writes the response headers and body apart, without TCP_NODELAY the body waits for
+ * the delayed acknowledgement of the headers, 40 ms per request on Linux. Launch the JVM embedding
+ * the server with -Dsun.net.httpserver.nodelay=true, main sets it unless it is already set.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeHttpServer {
+	public static final int DEFAULT_PORT = 8080;
+	public static final String MERGE_PATH = "/merge";
+	public static final String CONTAINS_PATH = "/contains";
+
+	//the query parameter holding a zip code to look up
+	public static final String ZIP_PARAMETER = "zip";
+
+	//the largest request body merged by default, in bytes
+	public static final long DEFAULT_MAX_BODY_SIZE = 16L << 20;
+
+	//the system property of the JDK HTTP server setting TCP_NODELAY on the connections, read once by the
+	//first HttpServer of the JVM, so it has to be set at launch: -Dsun.net.httpserver.nodelay=true
+	public static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	private final HttpServer httpServer;
+	private final ExecutorService requestExecutor;
+	private final ZipCodeService zipCodeService;
+	private final long maxBodySize;
+
+	/**
+	 * Create a server accepting bodies up to DEFAULT_MAX_BODY_SIZE, it does not accept requests until it is started.
+	 *
+	 * @param address	the address to listen to
+	 * @param zipCodeService	the service merging the zip code ranges
+	 * @throws IOException when the server cannot listen to the address
+	 */
+	public ZipCodeHttpServer(InetSocketAddress address, ZipCodeService zipCodeService) throws IOException {
+		this(address, zipCodeService, DEFAULT_MAX_BODY_SIZE);
+	}
+
+	/**
+	 * Create a server, it does not accept requests until it is started.
+	 *
+	 * @param address	the address to listen to
+	 * @param zipCodeService	the service merging the zip code ranges
+	 * @param maxBodySize	the largest request body merged, in bytes
+	 * @throws IOException when the server cannot listen to the address
+	 */
+	public ZipCodeHttpServer(InetSocketAddress address, ZipCodeService zipCodeService, long maxBodySize) throws IOException {
+		this.zipCodeService = zipCodeService;
+		this.maxBodySize = maxBodySize;
+		this.requestExecutor = newRequestExecutor();
+		this.httpServer = HttpServer.create(address, 0);
+		this.httpServer.setExecutor(requestExecutor);
+		this.httpServer.createContext(MERGE_PATH, this::handleMerge);
+		this.httpServer.createContext(CONTAINS_PATH, this::handleContains);
+	}
+
+	public void start() {
+		httpServer.start();
+	}
+
+	/**
+	 * Stop the server.
+	 *
+	 * @param delaySeconds	the maximum time to wait for the requests in progress to complete
+	 */
+	public void stop(int delaySeconds) {
+		httpServer.stop(delaySeconds);
+		requestExecutor.shutdown();
+	}
+
+	public InetSocketAddress getAddress() {
+		return httpServer.getAddress();
+	}
+
+	private void handleMerge(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Only POST is supported.");
+				return;
+			}
+
+			ZipCodeRangeSet mergedZipCodeRanges = mergeRequestBody(exchange);
+			respond(exchange, HttpURLConnection.HTTP_OK, ZipCodeRangeParser.formatZipCodeRanges(mergedZipCodeRanges));
+		} catch (InvalidZipCodeRangeException e) {
+			respond(exchange, HttpURLConnection.HTTP_BAD_REQUEST, e.getMessage());
+		} catch (BodyTooLargeException e) {
+			respond(exchange, HttpURLConnection.HTTP_ENTITY_TOO_LARGE, e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleContains(HttpExchange exchange) throws IOException {
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Only POST is supported.");
+				return;
+			}
+			List<String> zipCodes = getZipParameters(exchange.getRequestURI().getRawQuery());
+			int[] parsedZipCodes = new int[zipCodes.size()];
+			for (int i = 0; i < parsedZipCodes.length; i++) {
+				parsedZipCodes[i] = ZipCodeRangeParser.parseZipCode(zipCodes.get(i));
+				if (parsedZipCodes[i] < 0) {
+					respond(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "The provided zip code " + zipCodes.get(i) + " is not a valid zip code.");
+					return;
+				}
+			}
+
+			ZipCodeRangeSet mergedZipCodeRanges = mergeRequestBody(exchange);
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < parsedZipCodes.length; i++) {
+				sb.append(zipCodes.get(i)).append('=').append(mergedZipCodeRanges.contains(parsedZipCodes[i])).append('\n');
+			}
+			respond(exchange, HttpURLConnection.HTTP_OK, sb.toString());
+		} catch (InvalidZipCodeRangeException e) {
+			respond(exchange, HttpURLConnection.HTTP_BAD_REQUEST, e.getMessage());
+		} catch (BodyTooLargeException e) {
+			respond(exchange, HttpURLConnection.HTTP_ENTITY_TOO_LARGE, e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Merge the zip code ranges streamed from the request body.
+	 *
+	 * @throws BodyTooLargeException when the body is larger than the maximum body size
+	 */
+	private ZipCodeRangeSet mergeRequestBody(HttpExchange exchange) throws InvalidZipCodeRangeException, IOException {
+		//a chunked body has no length, it is only counted as it is read
+		String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (contentLength != null && Long.parseLong(contentLength.trim()) > maxBodySize) {
+			throw new BodyTooLargeException(maxBodySize);
+		}
+		try (Reader body = new InputStreamReader(new LimitedInputStream(exchange.getRequestBody(), maxBodySize), StandardCharsets.UTF_8)) {
+			return zipCodeService.mergeZipCodeRangeStream(body);
+		}
+	}
+
+	private static List<String> getZipParameters(String query) {
+		List<String> zipCodes = new ArrayList<String>();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				int equals = parameter.indexOf('=');
+				if (equals > 0 && ZIP_PARAMETER.equals(parameter.substring(0, equals))) {
+					zipCodes.add(parameter.substring(equals + 1));
+				}
+			}
+		}
+		return zipCodes;
+	}
+
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(bytes);
+		}
+	}
+
+	/**
+	 * Fails the read of a body past the maximum body size.
+	 */
+	private static final class LimitedInputStream extends FilterInputStream {
+		private long remaining;
+		private final long maxBodySize;
+
+		private LimitedInputStream(InputStream in, long maxBodySize) {
+			super(in);
+			this.remaining = maxBodySize;
+			this.maxBodySize = maxBodySize;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			//read one more byte than allowed to tell a body of exactly the maximum size from a larger one
+			int read = super.read(b, off, (int) Math.min(len, remaining + 1));
+			if (read > 0) {
+				remaining -= read;
+				if (remaining < 0) {
+					throw new BodyTooLargeException(maxBodySize);
+				}
+			}
+			return read;
+		}
+	}
+
+	private static final class BodyTooLargeException extends IOException {
+		private static final long serialVersionUID = -2837462912374650893L;
+
+		private BodyTooLargeException(long maxBodySize) {
+			super("The request body is larger than " + maxBodySize + " bytes.");
+		}
+	}
+
+	/**
+	 * A virtual thread per request when the JVM supports them, else a cached thread pool.
+	 */
+	private static ExecutorService newRequestExecutor() {
+		try {
+			Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Start the server, the metrics of its merges are published by JMX, disabled until they are enabled.
+	 *
+	 * @param args	the port to listen to, 8080 by default
+	 * @throws IOException when the server cannot listen to the port
+	 * @throws JMException when the metrics cannot be published
+	 */
+	public static void main(String[] args) throws IOException, JMException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		//before any HttpServer is created, the JDK server reads it once
+		if (System.getProperty(NODELAY_PROPERTY) == null) {
+			System.setProperty(NODELAY_PROPERTY, "true");
+		}
+		ZipCodeService zipCodeService = new ZipCodeService();
+		zipCodeService.getMetrics().register("server");
+		ZipCodeHttpServer zipCodeHttpServer = new ZipCodeHttpServer(new InetSocketAddress(port), zipCodeService);
+		zipCodeHttpServer.start();
+		System.out.println("Zip code server listening on port " + zipCodeHttpServer.getAddress().getPort());
+	}
+}
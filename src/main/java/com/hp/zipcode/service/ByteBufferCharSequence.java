@@ -0,0 +1,53 @@
+package com.hp.zipcode.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read only view of ASCII bytes as characters, so the zip code ranges can be parsed straight
+ * from a memory mapped file without decoding it into a String.
+ *
+ * @author Huy Pham
+ *
+ */
+final class ByteBufferCharSequence implements CharSequence {
+	private final ByteBuffer bytes;
+	private final int offset;
+	private final int length;
+
+	/**
+	 * @param bytes	the bytes from index 0 to the limit of the buffer
+	 */
+	ByteBufferCharSequence(ByteBuffer bytes) {
+		this(bytes, 0, bytes.limit());
+	}
+
+	private ByteBufferCharSequence(ByteBuffer bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char) (bytes.get(offset + index) & 0xFF);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new ByteBufferCharSequence(bytes, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = charAt(i);
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,159 @@
+package com.hp.zipcode.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * ZipCodeService that caches the merged zip code ranges of the inputs it has already merged,
+ * so merging the same zip code ranges again is nearly free.
+ *
+ * The cache is keyed on the input itself, found by its hash and confirmed by equality, and keeps
+ * the least recently used entries up to a maximum weight: the length of the inputs plus 4 chars
+ * per merged range. Cached results are immutable ZipCodeRangeSet, the lists returned by
+ * mergeOverlappingZipCodeRanges are copies, so cached entries cannot be corrupted by the callers.
+ * This class is thread safe.
+ *
+ * @author Huy Pham
+ *
+ */
+public class CachingZipCodeService extends ZipCodeService {
+	//the weight of a merged range, 8 bytes as 2 bytes chars
+	private static final int RANGE_WEIGHT = 4;
+
+	//the merged zip code ranges by input, in least recently used order
+	private final LinkedHashMap<String, ZipCodeRangeSet> cache = new LinkedHashMap<String, ZipCodeRangeSet>(16, 0.75f, true);
+
+	//the maximum total weight of the cached entries
+	private final long maxWeight;
+
+	//the total weight of the cached entries, guarded by the cache
+	private long weight;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Create a caching service that merges the zip code ranges sequentially with the ADAPTIVE strategy.
+	 *
+	 * @param maxWeight	the maximum total weight of the cached entries
+	 */
+	public CachingZipCodeService(long maxWeight) {
+		this(MergeStrategy.ADAPTIVE, 1, maxWeight);
+	}
+
+	/**
+	 * Create a caching service.
+	 *
+	 * @param mergeStrategy	the algorithm merging the zip code ranges
+	 * @param parallelism	the number of threads merging large inputs, 1 to always merge sequentially
+	 * @param maxWeight	the maximum total weight of the cached entries
+	 */
+	public CachingZipCodeService(MergeStrategy mergeStrategy, int parallelism, long maxWeight) {
+		super(mergeStrategy, parallelism);
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * This method will merge all the overlapping zip code ranges into an immutable set of ranges,
+	 * or return the cached set when the same zip code ranges have already been merged.
+	 * It also validates the zip code ranges, invalid zip code ranges are not cached.
+	 *
+	 * @param zipCodeRanges	the string represents the zip code ranges
+	 * @return the set of merged zip code ranges
+	 *
+	 * @throws InvalidZipCodeRangeException when detects that the zip code ranges contains invalid ranges.
+	 */
+	@Override
+	public ZipCodeRangeSet mergeZipCodeRanges(String zipCodeRanges) throws InvalidZipCodeRangeException {
+		if (zipCodeRanges == null) {
+			return super.mergeZipCodeRanges(zipCodeRanges);
+		}
+
+		ZipCodeRangeSet mergedZipCodeRanges;
+		synchronized (cache) {
+			mergedZipCodeRanges = cache.get(zipCodeRanges);
+		}
+		if (mergedZipCodeRanges != null) {
+			hitCount.increment();
+			return mergedZipCodeRanges;
+		}
+
+		//merge outside the lock, concurrent misses of the same input merge it more than once
+		missCount.increment();
+		mergedZipCodeRanges = super.mergeZipCodeRanges(zipCodeRanges);
+		cache(zipCodeRanges, mergedZipCodeRanges);
+		return mergedZipCodeRanges;
+	}
+
+	private void cache(String zipCodeRanges, ZipCodeRangeSet mergedZipCodeRanges) {
+		long entryWeight = weight(zipCodeRanges, mergedZipCodeRanges);
+		if (entryWeight > maxWeight) {
+			return;
+		}
+
+		synchronized (cache) {
+			ZipCodeRangeSet previous = cache.put(zipCodeRanges, mergedZipCodeRanges);
+			weight += entryWeight;
+			if (previous != null) {
+				weight -= weight(zipCodeRanges, previous);
+			}
+
+			//evict the least recently used entries
+			Iterator<Map.Entry<String, ZipCodeRangeSet>> iterator = cache.entrySet().iterator();
+			while (weight > maxWeight && iterator.hasNext()) {
+				Map.Entry<String, ZipCodeRangeSet> eldest = iterator.next();
+				weight -= weight(eldest.getKey(), eldest.getValue());
+				iterator.remove();
+				evictionCount.increment();
+			}
+		}
+	}
+
+	private static long weight(String zipCodeRanges, ZipCodeRangeSet mergedZipCodeRanges) {
+		return zipCodeRanges.length() + (long) RANGE_WEIGHT * mergedZipCodeRanges.size();
+	}
+
+	/**
+	 * Remove all the cached entries.
+	 */
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+			weight = 0;
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	public int getCachedEntryCount() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public long getCachedWeight() {
+		synchronized (cache) {
+			return weight;
+		}
+	}
+
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+}
@@ -0,0 +1,165 @@
+package com.hp.zipcode.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Merged zip code ranges shared by many reader threads while a few threads add and remove ranges.
+ *
+ * Readers only follow an atomic reference to an immutable snapshot, the merged ranges and a bitmap of
+ * the covered zip codes, so a read is wait free and never blocks on a writer.
+ * Writers enqueue their update then one of them, holding the write lock, drains every queued update into
+ * a ZipCodeRangeIndex and publishes a single new snapshot for the whole batch. The more writers contend,
+ * the larger the batches, so the cost of building a snapshot is shared by all the updates of a batch.
+ * An update is visible to all the readers when add or remove returns.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ConcurrentZipCodeRangeSet {
+	private final AtomicReference<Snapshot> snapshot;
+
+	//the updates waiting for the next batch
+	private final Queue<Update> updates = new ConcurrentLinkedQueue<Update>();
+
+	//guards the index, only the writer draining the updates holds it
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ZipCodeRangeIndex zipCodeRangeIndex;
+
+	/**
+	 * Create an empty set.
+	 */
+	public ConcurrentZipCodeRangeSet() {
+		this(ZipCodeRangeSet.EMPTY);
+	}
+
+	/**
+	 * Create a set holding the given merged zip code ranges.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 */
+	public ConcurrentZipCodeRangeSet(ZipCodeRangeSet zipCodeRangeSet) {
+		zipCodeRangeIndex = new ZipCodeRangeIndex(zipCodeRangeSet);
+		snapshot = new AtomicReference<Snapshot>(new Snapshot(zipCodeRangeSet, 0));
+	}
+
+	/**
+	 * Check whether a zip code is covered by the current snapshot, wait free and O(1).
+	 *
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is in one of the ranges
+	 */
+	public boolean contains(int zipCode) {
+		return snapshot.get().coverage.contains(zipCode);
+	}
+
+	/**
+	 * @return the current merged ranges, immutable and consistent with each other
+	 */
+	public ZipCodeRangeSet snapshot() {
+		return snapshot.get().mergedRanges;
+	}
+
+	/**
+	 * @return the number of merged ranges of the current snapshot
+	 */
+	public int size() {
+		return snapshot.get().mergedRanges.size();
+	}
+
+	/**
+	 * @return the number of snapshots published since the set was created
+	 */
+	public long getVersion() {
+		return snapshot.get().version;
+	}
+
+	/**
+	 * Add a zip code range, it is merged with the ranges it overlaps or is adjacent to.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 *
+	 * @throws InvalidZipCodeRangeException when the range is not a valid zip code range
+	 */
+	public void add(int lowerBound, int upperBound) throws InvalidZipCodeRangeException {
+		ZipCodeService.validateZipCodeRange(lowerBound, upperBound);
+		update(new Update(true, lowerBound, upperBound));
+	}
+
+	/**
+	 * Remove a zip code range, the ranges it overlaps are trimmed or split.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 *
+	 * @throws InvalidZipCodeRangeException when the range is not a valid zip code range
+	 */
+	public void remove(int lowerBound, int upperBound) throws InvalidZipCodeRangeException {
+		ZipCodeService.validateZipCodeRange(lowerBound, upperBound);
+		update(new Update(false, lowerBound, upperBound));
+	}
+
+	private void update(Update update) {
+		updates.add(update);
+		writeLock.lock();
+		try {
+			//the update may have been published by the batch of another writer already
+			if (updates.isEmpty()) {
+				return;
+			}
+			Update next;
+			while ((next = updates.poll()) != null) {
+				try {
+					if (next.add) {
+						zipCodeRangeIndex.add(next.lowerBound, next.upperBound);
+					} else {
+						zipCodeRangeIndex.remove(next.lowerBound, next.upperBound);
+					}
+				} catch (InvalidZipCodeRangeException e) {
+					//cannot happen, the updates are validated before they are queued
+					throw new IllegalStateException(e);
+				}
+			}
+			snapshot.set(new Snapshot(zipCodeRangeIndex.toRangeSet(), snapshot.get().version + 1));
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Immutable state read by the readers.
+	 */
+	private static final class Snapshot {
+		private final ZipCodeRangeSet mergedRanges;
+		private final ZipCodeBitmap coverage = new ZipCodeBitmap();
+		private final long version;
+
+		private Snapshot(ZipCodeRangeSet mergedRanges, long version) {
+			this.mergedRanges = mergedRanges;
+			this.version = version;
+			mergedRanges.forEach(coverage::set);
+		}
+	}
+
+	/**
+	 * A range to add or to remove.
+	 */
+	private static final class Update {
+		private final boolean add;
+		private final int lowerBound;
+		private final int upperBound;
+
+		private Update(boolean add, int lowerBound, int upperBound) {
+			this.add = add;
+			this.lowerBound = lowerBound;
+			this.upperBound = upperBound;
+		}
+	}
+}
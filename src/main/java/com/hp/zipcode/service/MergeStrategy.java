@@ -0,0 +1,163 @@
+package com.hp.zipcode.service;
+
+import java.util.Arrays;
+
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * The algorithms the ZipCodeService can use to merge the overlapping zip code ranges.
+ * All of them produce the same merged ranges.
+ *
+ * @author Huy Pham
+ *
+ */
+public enum MergeStrategy {
+	/**
+	 * Sort the ranges by lower bound then merge the neighbours, O(n log n).
+	 */
+	SORT {
+		@Override
+		public ZipCodeRangeSet merge(ZipCodeRangeBuffer zipCodeRanges) {
+			long[] ranges = zipCodeRanges.ranges();
+			int size = zipCodeRanges.size();
+			Arrays.sort(ranges, 0, size);
+			return mergeSorted(ranges, size);
+		}
+	},
+
+	/**
+	 * Mark the ranges in a bitmap of the whole zip code domain then scan the marked runs within the span
+	 * of the ranges, O(n + span / 64 words) and no sort.
+	 */
+	BITMAP {
+		@Override
+		public ZipCodeRangeSet merge(ZipCodeRangeBuffer zipCodeRanges) {
+			long[] ranges = zipCodeRanges.ranges();
+			int size = zipCodeRanges.size();
+			if (size == 0) {
+				return ZipCodeRangeSet.EMPTY;
+			}
+			ZipCodeBitmap zipCodeBitmap = new ZipCodeBitmap();
+			for (int i = 0; i < size; i++) {
+				zipCodeBitmap.set(ZipCodeRangeSet.lowerBound(ranges[i]), ZipCodeRangeSet.upperBound(ranges[i]));
+			}
+			ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder();
+			zipCodeBitmap.forEachRun(zipCodeRanges.minLowerBound(), zipCodeRanges.maxUpperBound(), builder);
+			return builder.build();
+		}
+	},
+
+	/**
+	 * Merge the neighbours of ranges that come sorted by lower bound in a single scan, O(n) and no sort.
+	 * Unsorted ranges are sorted first.
+	 */
+	PRESORTED_SCAN {
+		@Override
+		public ZipCodeRangeSet merge(ZipCodeRangeBuffer zipCodeRanges) {
+			if (!zipCodeRanges.isSorted()) {
+				return SORT.merge(zipCodeRanges);
+			}
+			return mergeSorted(zipCodeRanges.ranges(), zipCodeRanges.size());
+		}
+	},
+
+	/**
+	 * Sort the packed ranges by lower bound with two counting sort passes over its 17 bits, then merge
+	 * the neighbours, O(n) with no comparison.
+	 */
+	RADIX_SORT {
+		@Override
+		public ZipCodeRangeSet merge(ZipCodeRangeBuffer zipCodeRanges) {
+			long[] ranges = zipCodeRanges.ranges();
+			int size = zipCodeRanges.size();
+			long[] buffer = new long[size];
+			//the lower bound is in the bits 32 to 48 of a packed range
+			countingSort(ranges, buffer, size, 32, 9);
+			countingSort(buffer, ranges, size, 41, 8);
+			return mergeSorted(ranges, size);
+		}
+	},
+
+	/**
+	 * Pick the strategy from the statistics of the ranges: the presorted scan for sorted ranges, the sort for
+	 * a few ranges, the bitmap for ranges covering few zip codes in a narrow span, the radix sort otherwise.
+	 */
+	ADAPTIVE {
+		@Override
+		public ZipCodeRangeSet merge(ZipCodeRangeBuffer zipCodeRanges) {
+			return plan(zipCodeRanges).merge(zipCodeRanges);
+		}
+
+		@Override
+		public MergeStrategy plan(ZipCodeRangeBuffer zipCodeRanges) {
+			int size = zipCodeRanges.size();
+			if (zipCodeRanges.isSorted()) {
+				return PRESORTED_SCAN;
+			}
+			if (size <= SMALL_INPUT_SIZE) {
+				//an insertion sort beats clearing the counts of the radix sort
+				return SORT;
+			}
+			//the bitmap fills a word per 64 zip codes of every range then scans the words of the span,
+			//it pays off when that is less than a few words per range
+			long bitmapWords = zipCodeRanges.getTotalLength() / 64 + zipCodeRanges.getSpan() / 64 + 1;
+			if (bitmapWords <= (long) size * BITMAP_WORDS_PER_RANGE) {
+				return BITMAP;
+			}
+			return RADIX_SORT;
+		}
+	};
+
+	//the number of ranges up to which the adaptive strategy sorts them
+	static final int SMALL_INPUT_SIZE = 64;
+
+	//the number of bitmap words per range up to which the adaptive strategy uses the bitmap
+	static final int BITMAP_WORDS_PER_RANGE = 4;
+
+	/**
+	 * Merge the overlapping zip code ranges, the buffer may be reordered.
+	 *
+	 * @param zipCodeRanges	the validated zip code ranges
+	 * @return the merged zip code ranges
+	 */
+	public abstract ZipCodeRangeSet merge(ZipCodeRangeBuffer zipCodeRanges);
+
+	/**
+	 * Pick the strategy actually merging the zip code ranges.
+	 *
+	 * @param zipCodeRanges	the validated zip code ranges
+	 * @return the strategy picked by ADAPTIVE, this strategy for the others
+	 */
+	public MergeStrategy plan(ZipCodeRangeBuffer zipCodeRanges) {
+		return this;
+	}
+
+	/**
+	 * Merge the packed ranges already sorted by lower bound in a single scan.
+	 */
+	static ZipCodeRangeSet mergeSorted(long[] ranges, int size) {
+		ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder();
+		for (int i = 0; i < size; i++) {
+			builder.add(ZipCodeRangeSet.lowerBound(ranges[i]), ZipCodeRangeSet.upperBound(ranges[i]));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Stable counting sort of the packed ranges by the given bits.
+	 */
+	private static void countingSort(long[] from, long[] to, int size, int shift, int bits) {
+		int mask = (1 << bits) - 1;
+		int[] offsets = new int[mask + 2];
+		for (int i = 0; i < size; i++) {
+			offsets[((int) (from[i] >>> shift) & mask) + 1]++;
+		}
+		for (int digit = 0; digit <= mask; digit++) {
+			offsets[digit + 1] += offsets[digit];
+		}
+		for (int i = 0; i < size; i++) {
+			to[offsets[(int) (from[i] >>> shift) & mask]++] = from[i];
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.hp.zipcode.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Parse, validate and merge very large zip code ranges on a ForkJoinPool.
+ *
+ * The input is split in chunks at range boundaries, every chunk is parsed and merged on its own
+ * then the sorted partial results are combined with a linear merge. When several chunks contain
+ * invalid ranges the error of the first chunk in the input is reported, so the error is the same
+ * as the sequential parsing reports.
+ *
+ * @author Huy Pham
+ *
+ */
+final class ParallelZipCodeRangeMerger {
+	//the smallest chunk worth a task of its own
+	private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+	private final ForkJoinPool forkJoinPool;
+	private final ZipCodeRangeParser zipCodeRangeParser;
+	private final MergeStrategy mergeStrategy;
+
+	ParallelZipCodeRangeMerger(int parallelism, ZipCodeRangeParser zipCodeRangeParser, MergeStrategy mergeStrategy) {
+		this.forkJoinPool = new ForkJoinPool(parallelism);
+		this.zipCodeRangeParser = zipCodeRangeParser;
+		this.mergeStrategy = mergeStrategy;
+	}
+
+	/**
+	 * Merge the zip code ranges between from and to, to has to be the end of the input
+	 * or right after a range boundary (see isRangeBoundary).
+	 *
+	 * @param input	the zip code ranges
+	 * @param from	the position to start parsing from
+	 * @param to	the position to stop parsing at
+	 * @return the merged zip code ranges
+	 *
+	 * @throws InvalidZipCodeRangeException when detects an invalid zip code range
+	 */
+	ZipCodeRangeSet merge(CharSequence input, int from, int to) throws InvalidZipCodeRangeException {
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, (to - from) / (forkJoinPool.getParallelism() * 4));
+		MergeTask mergeTask = new MergeTask(input, from, to, chunkSize);
+		forkJoinPool.invoke(mergeTask);
+		if (mergeTask.error != null) {
+			throw mergeTask.error;
+		}
+		return mergeTask.mergedRanges;
+	}
+
+	/**
+	 * Shut down the pool, the merges in progress complete.
+	 */
+	void shutdown() {
+		forkJoinPool.shutdown();
+	}
+
+	/**
+	 * Find the position right after the last range boundary before to.
+	 *
+	 * @return the position right after the boundary, from when there is none
+	 */
+	static int lastRangeBoundary(CharSequence input, int from, int to) {
+		for (int i = to - 1; i >= from; i--) {
+			if (isRangeBoundary(input.charAt(i))) {
+				return i + 1;
+			}
+		}
+		return from;
+	}
+
+	/**
+	 * A closing bracket ends any opened range and a line terminator fails it,
+	 * so parsing right after one of them is independent from what comes before.
+	 */
+	private static boolean isRangeBoundary(char c) {
+		return c == ']' || ZipCodeRangeParser.isLineTerminator(c);
+	}
+
+	private final class MergeTask extends RecursiveAction {
+		private static final long serialVersionUID = 6419382645409384227L;
+
+		private final CharSequence input;
+		private final int from;
+		private final int to;
+		private final int chunkSize;
+
+		private ZipCodeRangeSet mergedRanges;
+		private InvalidZipCodeRangeException error;
+
+		MergeTask(CharSequence input, int from, int to, int chunkSize) {
+			this.input = input;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected void compute() {
+			int split = to - from > chunkSize ? nextRangeBoundary(from + (to - from) / 2) : to;
+			if (split >= to) {
+				mergeChunk();
+				return;
+			}
+
+			MergeTask left = new MergeTask(input, from, split, chunkSize);
+			MergeTask right = new MergeTask(input, split, to, chunkSize);
+			left.fork();
+			right.compute();
+			left.join();
+
+			//the error found first in the input wins
+			if (left.error != null) {
+				error = left.error;
+			} else if (right.error != null) {
+				error = right.error;
+			} else {
+				mergedRanges = left.mergedRanges.union(right.mergedRanges);
+			}
+		}
+
+		private void mergeChunk() {
+			try {
+				ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+				zipCodeRangeParser.parse(input, from, to, true, zipCodeRangeBuffer);
+				mergedRanges = mergeStrategy.merge(zipCodeRangeBuffer);
+			} catch (InvalidZipCodeRangeException e) {
+				error = e;
+			}
+		}
+
+		private int nextRangeBoundary(int position) {
+			for (int i = position; i < to; i++) {
+				if (isRangeBoundary(input.charAt(i))) {
+					return i + 1;
+				}
+			}
+			return to;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.hp.zipcode.service;
+
+import java.util.Arrays;
+
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Growable buffer collecting the parsed zip code ranges, in input order and not merged yet,
+ * as packed longs so that no object is created per range.
+ * The statistics the adaptive merge strategy plans with are collected as the ranges are added:
+ * whether they come sorted by lower bound, the span of their bounds and their total length.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeBuffer implements ZipCodeRangeConsumer {
+	//the largest array the JVMs can allocate
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+	private long[] ranges;
+	private int size;
+
+	//the statistics of the added ranges
+	private boolean sorted = true;
+	private int lastLowerBound;
+	private int minLowerBound = Integer.MAX_VALUE;
+	private int maxUpperBound = Integer.MIN_VALUE;
+	private long totalLength;
+
+	public ZipCodeRangeBuffer() {
+		this(64);
+	}
+
+	/**
+	 * @param expectedSize	the expected number of ranges
+	 */
+	public ZipCodeRangeBuffer(int expectedSize) {
+		ranges = new long[Math.max(expectedSize, 1)];
+	}
+
+	@Override
+	public void accept(int lowerBound, int upperBound) {
+		if (size == ranges.length) {
+			if (size == MAX_CAPACITY) {
+				throw new OutOfMemoryError("Too many zip code ranges to buffer.");
+			}
+			ranges = Arrays.copyOf(ranges, (int) Math.min(size * 2L, MAX_CAPACITY));
+		}
+		ranges[size++] = ZipCodeRangeSet.pack(lowerBound, upperBound);
+
+		sorted &= lowerBound >= lastLowerBound;
+		lastLowerBound = lowerBound;
+		minLowerBound = Math.min(minLowerBound, lowerBound);
+		maxUpperBound = Math.max(maxUpperBound, upperBound);
+		totalLength += upperBound - lowerBound + 1;
+	}
+
+	/**
+	 * @return the number of ranges
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true when the ranges were added in ascending order of lower bound
+	 */
+	public boolean isSorted() {
+		return sorted;
+	}
+
+	/**
+	 * @return the number of zip codes from the lowest lower bound to the highest upper bound, 0 when empty
+	 */
+	public int getSpan() {
+		return size == 0 ? 0 : maxUpperBound - minLowerBound + 1;
+	}
+
+	/**
+	 * @return the sum of the number of zip codes of every range
+	 */
+	public long getTotalLength() {
+		return totalLength;
+	}
+
+	/**
+	 * @return the lowest lower bound of the ranges, undefined when empty
+	 */
+	int minLowerBound() {
+		return minLowerBound;
+	}
+
+	/**
+	 * @return the highest upper bound of the ranges, undefined when empty
+	 */
+	int maxUpperBound() {
+		return maxUpperBound;
+	}
+
+	/**
+	 * @return the packed ranges, only the first size() entries are ranges
+	 */
+	long[] ranges() {
+		return ranges;
+	}
+}
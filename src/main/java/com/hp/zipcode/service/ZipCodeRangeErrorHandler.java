@@ -0,0 +1,23 @@
+package com.hp.zipcode.service;
+
+import com.hp.zipcode.exception.ZipCodeRangeErrorKind;
+
+/**
+ * Receives the invalid zip code ranges found by the ZipCodeRangeParser in lenient mode.
+ *
+ * @author Huy Pham
+ *
+ */
+@FunctionalInterface
+public interface ZipCodeRangeErrorHandler {
+
+	/**
+	 * Report an invalid zip code range.
+	 *
+	 * @param kind	the kind of invalid zip code range
+	 * @param position	the position of the offending text in the input
+	 * @param text	the offending text, the same as in the message of the strict mode error
+	 *              except for OUT_OF_BOUND errors, where it is the content of the bracket
+	 */
+	void onError(ZipCodeRangeErrorKind kind, long position, CharSequence text);
+}
@@ -0,0 +1,145 @@
+package com.hp.zipcode.service;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Mutable index of merged zip code ranges that applies additions and withdrawals of ranges
+ * without merging all the ranges again.
+ *
+ * The merged ranges are kept in a balanced tree keyed by lower bound. Adding a range coalesces it
+ * with the ranges it overlaps or touches, with the same rule as doMergeZipCodeRanges, and removing
+ * a range trims or splits the ranges it overlaps, both in O(log n + k) where k is the number of
+ * ranges touched. This class is not thread safe.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeIndex {
+	//the merged zip code ranges by lower bound
+	private final TreeMap<Integer, ZipCodeRange> zipCodeRanges = new TreeMap<Integer, ZipCodeRange>();
+
+	/**
+	 * Create an empty index.
+	 */
+	public ZipCodeRangeIndex() {
+	}
+
+	/**
+	 * Create an index holding the given merged zip code ranges.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 */
+	public ZipCodeRangeIndex(ZipCodeRangeSet zipCodeRangeSet) {
+		zipCodeRangeSet.forEach((lowerBound, upperBound) -> zipCodeRanges.put(lowerBound, new ZipCodeRange(lowerBound, upperBound)));
+	}
+
+	/**
+	 * Add a zip code range, it is merged with the ranges it overlaps or is adjacent to.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 *
+	 * @throws InvalidZipCodeRangeException when the range is not a valid zip code range
+	 */
+	public void add(int lowerBound, int upperBound) throws InvalidZipCodeRangeException {
+		ZipCodeService.validateZipCodeRange(lowerBound, upperBound);
+
+		//extend the range to the left when it overlaps or touches the previous range
+		Map.Entry<Integer, ZipCodeRange> previous = zipCodeRanges.floorEntry(lowerBound);
+		if (previous != null && previous.getValue().getUpperBound() >= lowerBound - 1) {
+			lowerBound = previous.getKey();
+			upperBound = Math.max(upperBound, previous.getValue().getUpperBound());
+		}
+
+		//absorb the ranges starting inside the range or right after it
+		NavigableMap<Integer, ZipCodeRange> absorbed = zipCodeRanges.subMap(lowerBound, true, upperBound + 1, true);
+		if (!absorbed.isEmpty()) {
+			upperBound = Math.max(upperBound, absorbed.lastEntry().getValue().getUpperBound());
+			absorbed.clear();
+		}
+		zipCodeRanges.put(lowerBound, new ZipCodeRange(lowerBound, upperBound));
+	}
+
+	/**
+	 * Remove a zip code range, the ranges it overlaps are trimmed or split.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 *
+	 * @throws InvalidZipCodeRangeException when the range is not a valid zip code range
+	 */
+	public void remove(int lowerBound, int upperBound) throws InvalidZipCodeRangeException {
+		ZipCodeService.validateZipCodeRange(lowerBound, upperBound);
+
+		//trim the range starting before the removed range, and split it when it ends after it
+		Map.Entry<Integer, ZipCodeRange> previous = zipCodeRanges.lowerEntry(lowerBound);
+		if (previous != null && previous.getValue().getUpperBound() >= lowerBound) {
+			int previousUpperBound = previous.getValue().getUpperBound();
+			zipCodeRanges.put(previous.getKey(), new ZipCodeRange(previous.getKey(), lowerBound - 1));
+			if (previousUpperBound > upperBound) {
+				zipCodeRanges.put(upperBound + 1, new ZipCodeRange(upperBound + 1, previousUpperBound));
+			}
+		}
+
+		//drop the ranges starting inside the removed range, keeping what ends after it
+		NavigableMap<Integer, ZipCodeRange> removed = zipCodeRanges.subMap(lowerBound, true, upperBound, true);
+		if (!removed.isEmpty()) {
+			int lastUpperBound = removed.lastEntry().getValue().getUpperBound();
+			removed.clear();
+			if (lastUpperBound > upperBound) {
+				zipCodeRanges.put(upperBound + 1, new ZipCodeRange(upperBound + 1, lastUpperBound));
+			}
+		}
+	}
+
+	/**
+	 * Add all the ranges of a set.
+	 *
+	 * @param zipCodeRangeSet	the zip code ranges
+	 */
+	public void addAll(ZipCodeRangeSet zipCodeRangeSet) {
+		for (int i = 0; i < zipCodeRangeSet.size(); i++) {
+			try {
+				add(zipCodeRangeSet.getLowerBound(i), zipCodeRangeSet.getUpperBound(i));
+			} catch (InvalidZipCodeRangeException e) {
+				//cannot happen, the ranges of a set are valid
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Check whether a zip code is in one of the ranges, O(log n).
+	 *
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is in one of the ranges
+	 */
+	public boolean contains(int zipCode) {
+		Map.Entry<Integer, ZipCodeRange> floor = zipCodeRanges.floorEntry(zipCode);
+		return floor != null && floor.getValue().getUpperBound() >= zipCode;
+	}
+
+	/**
+	 * @return the number of merged ranges
+	 */
+	public int size() {
+		return zipCodeRanges.size();
+	}
+
+	/**
+	 * @return an immutable snapshot of the merged ranges
+	 */
+	public ZipCodeRangeSet toRangeSet() {
+		ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder(zipCodeRanges.size());
+		for (ZipCodeRange zipCodeRange : zipCodeRanges.values()) {
+			builder.add(zipCodeRange.getLowerBound(), zipCodeRange.getUpperBound());
+		}
+		return builder.build();
+	}
+}
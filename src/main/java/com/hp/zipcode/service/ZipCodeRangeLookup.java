@@ -0,0 +1,253 @@
+package com.hp.zipcode.service;
+
+import java.util.Arrays;
+
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Answers point queries over zip code ranges once they are merged.
+ *
+ * Whether a zip code is covered is answered in constant time by a bitmap of the whole zip code domain.
+ * Which input ranges cover a zip code is answered by a stabbing index: the input ranges sorted by
+ * lower bound form an implicit interval tree, every node keeping the highest upper bound of its subtree,
+ * which answers in O(log n + k) for the k covering ranges. All the queries are allocation free and the
+ * lookup is immutable, so it can be shared by any number of threads.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeLookup {
+	//subtrees up to this level are scanned linearly
+	private static final int SCAN_LEVEL = 3;
+
+	//the zip codes covered by the ranges
+	private final ZipCodeBitmap coverage = new ZipCodeBitmap();
+	private final ZipCodeRangeSet mergedRanges;
+
+	//the packed input ranges in input order
+	private final long[] inputRanges;
+
+	//the implicit interval tree, the input ranges sorted by lower bound
+	private final int[] lowerBounds;
+	private final int[] upperBounds;
+	private final int[] inputIndexes;
+	private final int[] maxUpperBounds;
+	private final int rootLevel;
+
+	/**
+	 * @param inputRanges	the packed input ranges in input order, validated and owned by the lookup
+	 */
+	ZipCodeRangeLookup(long[] inputRanges) {
+		this.inputRanges = inputRanges;
+		int size = inputRanges.length;
+
+		//mark the ranges then merge them from the runs of covered zip codes
+		long[] sortedRanges = new long[size];
+		for (int i = 0; i < size; i++) {
+			int lowerBound = ZipCodeRangeSet.lowerBound(inputRanges[i]);
+			coverage.set(lowerBound, ZipCodeRangeSet.upperBound(inputRanges[i]));
+			sortedRanges[i] = ZipCodeRangeSet.pack(lowerBound, i);
+		}
+		ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder();
+		coverage.forEachRun(builder);
+		mergedRanges = builder.build();
+
+		//sort the input ranges by lower bound, keeping their input index
+		Arrays.sort(sortedRanges);
+		lowerBounds = new int[size];
+		upperBounds = new int[size];
+		inputIndexes = new int[size];
+		for (int i = 0; i < size; i++) {
+			lowerBounds[i] = ZipCodeRangeSet.lowerBound(sortedRanges[i]);
+			inputIndexes[i] = ZipCodeRangeSet.upperBound(sortedRanges[i]);
+			upperBounds[i] = ZipCodeRangeSet.upperBound(inputRanges[inputIndexes[i]]);
+		}
+		maxUpperBounds = new int[size];
+		rootLevel = indexMaxUpperBounds();
+	}
+
+	/**
+	 * Create a lookup over merged zip code ranges, the input ranges being the merged ranges.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 * @return the lookup
+	 */
+	public static ZipCodeRangeLookup of(ZipCodeRangeSet zipCodeRangeSet) {
+		return new ZipCodeRangeLookup(zipCodeRangeSet.toPackedArray());
+	}
+
+	/**
+	 * @return the merged zip code ranges
+	 */
+	public ZipCodeRangeSet getMergedRanges() {
+		return mergedRanges;
+	}
+
+	/**
+	 * @return the number of input ranges
+	 */
+	public int getInputRangeCount() {
+		return inputRanges.length;
+	}
+
+	/**
+	 * @param inputIndex	the position of the range in the input, starting at 0
+	 * @return the lower bound of the input range
+	 */
+	public int getInputLowerBound(int inputIndex) {
+		return ZipCodeRangeSet.lowerBound(inputRanges[inputIndex]);
+	}
+
+	/**
+	 * @param inputIndex	the position of the range in the input, starting at 0
+	 * @return the upper bound of the input range
+	 */
+	public int getInputUpperBound(int inputIndex) {
+		return ZipCodeRangeSet.upperBound(inputRanges[inputIndex]);
+	}
+
+	/**
+	 * Check whether a zip code is covered by the ranges in constant time.
+	 *
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is covered
+	 */
+	public boolean contains(int zipCode) {
+		return coverage.contains(zipCode);
+	}
+
+	/**
+	 * Check whether each zip code is covered by the ranges.
+	 *
+	 * @param zipCodes	the zip codes
+	 * @param covered	receives whether each zip code is covered, at least as long as zipCodes
+	 * @return the number of covered zip codes
+	 */
+	public int contains(int[] zipCodes, boolean[] covered) {
+		int coveredCount = 0;
+		for (int i = 0; i < zipCodes.length; i++) {
+			covered[i] = coverage.contains(zipCodes[i]);
+			if (covered[i]) {
+				coveredCount++;
+			}
+		}
+		return coveredCount;
+	}
+
+	/**
+	 * Count the input ranges covering a zip code.
+	 *
+	 * @param zipCode	the zip code
+	 * @return the number of input ranges covering the zip code
+	 */
+	public int countCoveringRanges(int zipCode) {
+		return getCoveringRanges(zipCode, null);
+	}
+
+	/**
+	 * Count the input ranges covering each zip code.
+	 *
+	 * @param zipCodes	the zip codes
+	 * @param counts	receives the number of input ranges covering each zip code, at least as long as zipCodes
+	 */
+	public void countCoveringRanges(int[] zipCodes, int[] counts) {
+		for (int i = 0; i < zipCodes.length; i++) {
+			counts[i] = getCoveringRanges(zipCodes[i], null);
+		}
+	}
+
+	/**
+	 * Find the input ranges covering a zip code, in ascending order of their lower bound.
+	 *
+	 * @param zipCode	the zip code
+	 * @param inputIndexes	receives the input index of the covering ranges, the ranges that do not fit are only counted, can be null
+	 * @return the number of input ranges covering the zip code
+	 */
+	public int getCoveringRanges(int zipCode, int[] inputIndexes) {
+		if (!coverage.contains(zipCode)) {
+			return 0;
+		}
+		return stab(zipCode, (1 << rootLevel) - 1, rootLevel, inputIndexes, 0);
+	}
+
+	/**
+	 * Compute the highest upper bound of every subtree of the implicit interval tree, where the nodes
+	 * of level k are the indexes whose k lowest bits are set.
+	 *
+	 * @return the level of the root
+	 */
+	private int indexMaxUpperBounds() {
+		int size = lowerBounds.length;
+		if (size == 0) {
+			return 0;
+		}
+
+		//the leaves
+		int lastIndex = 0;
+		int lastMax = 0;
+		for (int i = 0; i < size; i += 2) {
+			lastIndex = i;
+			lastMax = maxUpperBounds[i] = upperBounds[i];
+		}
+
+		//the inner nodes level by level, lastIndex follows the ancestors of the last leaf for the
+		//children missing from the incomplete tree
+		int level = 1;
+		for (; 1 << level <= size; level++) {
+			int childOffset = 1 << (level - 1);
+			for (int i = (childOffset << 1) - 1; i < size; i += childOffset << 2) {
+				int leftMax = maxUpperBounds[i - childOffset];
+				int rightMax = i + childOffset < size ? maxUpperBounds[i + childOffset] : lastMax;
+				maxUpperBounds[i] = Math.max(upperBounds[i], Math.max(leftMax, rightMax));
+			}
+			//move to the parent, a right child has the bit of its level set
+			lastIndex = ((lastIndex >>> level) & 1) != 0 ? lastIndex - childOffset : lastIndex + childOffset;
+			if (lastIndex < size && maxUpperBounds[lastIndex] > lastMax) {
+				lastMax = maxUpperBounds[lastIndex];
+			}
+		}
+		return level - 1;
+	}
+
+	/**
+	 * Visit the subtree of node x at the given level and collect the ranges covering the zip code.
+	 */
+	private int stab(int zipCode, int x, int level, int[] coveringIndexes, int count) {
+		int size = lowerBounds.length;
+		if (level <= SCAN_LEVEL) {
+			//small subtree, scan its ranges
+			int first = x >> level << level;
+			int last = Math.min(size, first + (1 << (level + 1)) - 1);
+			for (int i = first; i < last && lowerBounds[i] <= zipCode; i++) {
+				if (upperBounds[i] >= zipCode) {
+					count = collect(i, coveringIndexes, count);
+				}
+			}
+			return count;
+		}
+
+		//the left child, it may be out of range in an incomplete tree
+		int childOffset = 1 << (level - 1);
+		int left = x - childOffset;
+		if (left >= size || maxUpperBounds[left] >= zipCode) {
+			count = stab(zipCode, left, level - 1, coveringIndexes, count);
+		}
+
+		//the node itself then the right child, whose ranges start at or after the node
+		if (x < size && lowerBounds[x] <= zipCode) {
+			if (upperBounds[x] >= zipCode) {
+				count = collect(x, coveringIndexes, count);
+			}
+			count = stab(zipCode, x + childOffset, level - 1, coveringIndexes, count);
+		}
+		return count;
+	}
+
+	private int collect(int node, int[] coveringIndexes, int count) {
+		if (coveringIndexes != null && count < coveringIndexes.length) {
+			coveringIndexes[count] = inputIndexes[node];
+		}
+		return count + 1;
+	}
+}
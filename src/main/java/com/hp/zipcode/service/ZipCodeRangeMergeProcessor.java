@@ -0,0 +1,190 @@
+package com.hp.zipcode.service;
+
+import java.text.MessageFormat;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Flow processor merging a stream of zip code ranges incrementally, with backpressure on both sides:
+ * the ranges are requested from upstream in small batches and publishing a merged range blocks
+ * while the buffer of a subscriber is full.
+ *
+ * When the input is declared sorted by lower bound, a merged range is published as soon as the next
+ * lower bound is past its upper bound + 1, so only one open range is held and the first merged ranges
+ * are published long before the end of the input.
+ * Otherwise the ranges are buffered up to SPILL_THRESHOLD then spilled into a bitmap of the zip code
+ * domain, so the memory stays flat whatever the size of the input, and the merged ranges are published
+ * when the input completes.
+ *
+ * An invalid range, or a range out of order in a sorted input, cancels the upstream subscription and
+ * closes the processor exceptionally.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeMergeProcessor extends SubmissionPublisher<ZipCodeRange>
+		implements Flow.Processor<ZipCodeRange, ZipCodeRange> {
+	//the number of ranges requested from upstream at once
+	public static final int REQUEST_SIZE = 256;
+
+	//the number of unsorted ranges buffered before they are spilled into a bitmap
+	public static final int SPILL_THRESHOLD = 1024;
+
+	public static final String UNSORTED_ZIPCODE_RANGE_ERROR = "The zip code range {0} is not sorted by lower bound.";
+
+	private final boolean sorted;
+	private Flow.Subscription subscription;
+	private int received;
+	private boolean done;
+
+	//the range still open in a sorted input, no range is open while the lower bound is negative
+	private int openLowerBound = -1;
+	private int openUpperBound;
+
+	//the packed ranges of an unsorted input until they are spilled into the bitmap
+	private final long[] buffer;
+	private int bufferSize;
+	private ZipCodeBitmap spilled;
+
+	/**
+	 * Create a processor publishing on the common pool.
+	 *
+	 * @param sorted	true when the input ranges are sorted by lower bound
+	 */
+	public ZipCodeRangeMergeProcessor(boolean sorted) {
+		this(sorted, ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+	}
+
+	/**
+	 * @param sorted	true when the input ranges are sorted by lower bound
+	 * @param executor	the executor delivering the merged ranges to the subscribers
+	 * @param maxBufferCapacity	the number of merged ranges buffered per subscriber before publishing blocks
+	 */
+	public ZipCodeRangeMergeProcessor(boolean sorted, Executor executor, int maxBufferCapacity) {
+		super(executor, maxBufferCapacity);
+		this.sorted = sorted;
+		this.buffer = sorted ? null : new long[SPILL_THRESHOLD];
+	}
+
+	public boolean isSorted() {
+		return sorted;
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (this.subscription != null) {
+			subscription.cancel();
+			return;
+		}
+		this.subscription = subscription;
+		subscription.request(REQUEST_SIZE);
+	}
+
+	@Override
+	public void onNext(ZipCodeRange zipCodeRange) {
+		if (done) {
+			return;
+		}
+		int lowerBound = zipCodeRange.getLowerBound();
+		int upperBound = zipCodeRange.getUpperBound();
+		try {
+			ZipCodeService.validateZipCodeRange(lowerBound, upperBound);
+			if (sorted) {
+				acceptSorted(lowerBound, upperBound);
+			} else {
+				acceptUnsorted(lowerBound, upperBound);
+			}
+		} catch (InvalidZipCodeRangeException | IllegalArgumentException e) {
+			done = true;
+			subscription.cancel();
+			closeExceptionally(e);
+			return;
+		}
+
+		//request the next half batch once half of the batch is received
+		if (++received == REQUEST_SIZE / 2) {
+			received = 0;
+			subscription.request(REQUEST_SIZE / 2);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (!done) {
+			done = true;
+			closeExceptionally(throwable);
+		}
+	}
+
+	@Override
+	public void onComplete() {
+		if (done) {
+			return;
+		}
+		done = true;
+		if (sorted) {
+			if (openLowerBound >= 0) {
+				submit(new ZipCodeRange(openLowerBound, openUpperBound));
+			}
+		} else if (spilled != null) {
+			spilled.forEachRun((lowerBound, upperBound) -> submit(new ZipCodeRange(lowerBound, upperBound)));
+		} else {
+			ZipCodeRangeSet merged = MergeStrategy.SORT.merge(toZipCodeRangeBuffer());
+			for (int i = 0; i < merged.size(); i++) {
+				submit(merged.get(i));
+			}
+		}
+		close();
+	}
+
+	private void acceptSorted(int lowerBound, int upperBound) {
+		if (lowerBound < openLowerBound) {
+			throw new IllegalArgumentException(MessageFormat.format(UNSORTED_ZIPCODE_RANGE_ERROR,
+					new ZipCodeRange(lowerBound, upperBound).toString()));
+		}
+		if (openLowerBound < 0) {
+			openLowerBound = lowerBound;
+			openUpperBound = upperBound;
+		} else if (lowerBound > openUpperBound + 1) {
+			//no later range can reach the open range any more
+			submit(new ZipCodeRange(openLowerBound, openUpperBound));
+			openLowerBound = lowerBound;
+			openUpperBound = upperBound;
+		} else {
+			openUpperBound = Math.max(openUpperBound, upperBound);
+		}
+	}
+
+	private void acceptUnsorted(int lowerBound, int upperBound) {
+		if (spilled != null) {
+			spilled.set(lowerBound, upperBound);
+			return;
+		}
+		if (bufferSize == buffer.length) {
+			//spill the buffered ranges, the bitmap takes the same memory whatever the number of ranges
+			spilled = new ZipCodeBitmap();
+			for (int i = 0; i < bufferSize; i++) {
+				spilled.set(ZipCodeRangeSet.lowerBound(buffer[i]), ZipCodeRangeSet.upperBound(buffer[i]));
+			}
+			bufferSize = 0;
+			spilled.set(lowerBound, upperBound);
+			return;
+		}
+		buffer[bufferSize++] = ZipCodeRangeSet.pack(lowerBound, upperBound);
+	}
+
+	private ZipCodeRangeBuffer toZipCodeRangeBuffer() {
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer(bufferSize);
+		for (int i = 0; i < bufferSize; i++) {
+			zipCodeRangeBuffer.accept(ZipCodeRangeSet.lowerBound(buffer[i]), ZipCodeRangeSet.upperBound(buffer[i]));
+		}
+		return zipCodeRangeBuffer;
+	}
+}
@@ -0,0 +1,45 @@
+package com.hp.zipcode.service;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.hp.zipcode.model.ZipCodeRangeError;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * The result of a lenient merge: the merged valid zip code ranges and the invalid ones that were skipped.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeMergeResult {
+	private final ZipCodeRangeSet mergedRanges;
+	private final List<ZipCodeRangeError> errors;
+
+	/**
+	 * @param mergedRanges	the merged valid zip code ranges
+	 * @param errors	the invalid zip code ranges in input order, owned by the result
+	 */
+	ZipCodeRangeMergeResult(ZipCodeRangeSet mergedRanges, List<ZipCodeRangeError> errors) {
+		this.mergedRanges = mergedRanges;
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	/**
+	 * @return the merged valid zip code ranges
+	 */
+	public ZipCodeRangeSet getMergedRanges() {
+		return mergedRanges;
+	}
+
+	/**
+	 * @return the invalid zip code ranges in input order
+	 */
+	public List<ZipCodeRangeError> getErrors() {
+		return errors;
+	}
+
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+}
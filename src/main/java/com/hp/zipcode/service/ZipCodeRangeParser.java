@@ -0,0 +1,430 @@
+package com.hp.zipcode.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.text.MessageFormat;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.exception.ZipCodeRangeErrorKind;
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Single pass scanner for zip code ranges in the bracket format, e.g. [94133,94133] [94200,94299].
+ *
+ * The brackets, whitespaces, commas and 5 digits bounds are parsed straight into ints without
+ * creating intermediate strings. It accepts the same input and reports the same error messages
+ * as extracting the ranges with PARSE_ZIPCODE_RANGE_REGEX, splitting them by COMMA_DELIMITER
+ * and validating both bounds with VALID_ZIPCODE_RANGE_REGEX.
+ *
+ * In strict mode the first invalid range throws an InvalidZipCodeRangeException. In lenient mode
+ * invalid ranges are reported to an error handler and skipped, no exception is created for them.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeParser {
+	//the number of digits of a zip code
+	public static final int ZIPCODE_DIGITS = 5;
+
+	//the number of chars read at once from a stream
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	//the longest unclosed bracket kept from a chunk of a stream to the next one, a range is about 13 chars
+	static final int MAX_BRACKET_LENGTH = 1 << 10;
+
+	/**
+	 * Parse all the zip code ranges of the input.
+	 *
+	 * @param input	the zip code ranges
+	 * @param consumer	receives the lower and upper bound of every valid range in input order
+	 *
+	 * @throws InvalidZipCodeRangeException when detects an invalid zip code range
+	 */
+	public void parse(CharSequence input, ZipCodeRangeConsumer consumer) throws InvalidZipCodeRangeException {
+		parse(input, 0, input.length(), true, consumer);
+	}
+
+	/**
+	 * Parse all the zip code ranges of the input, reporting and skipping the invalid ranges.
+	 *
+	 * @param input	the zip code ranges
+	 * @param consumer	receives the lower and upper bound of every valid range in input order
+	 * @param errorHandler	receives every invalid range in input order
+	 */
+	public void parse(CharSequence input, ZipCodeRangeConsumer consumer, ZipCodeRangeErrorHandler errorHandler) {
+		parse(input, 0, input.length(), true, consumer, errorHandler);
+	}
+
+	/**
+	 * Parse all the zip code ranges of a stream, chunk by chunk, without reading the whole stream
+	 * into memory. A bracket still open after MAX_BRACKET_LENGTH chars cannot be a range, it fails
+	 * to extract instead of being buffered until it is closed. The reader is not closed.
+	 *
+	 * @param reader	the zip code ranges
+	 * @param consumer	receives the lower and upper bound of every valid range in input order
+	 * @return the number of chars read from the stream
+	 *
+	 * @throws InvalidZipCodeRangeException when detects an invalid zip code range
+	 * @throws IOException when the stream cannot be read
+	 */
+	public long parse(Reader reader, ZipCodeRangeConsumer consumer) throws InvalidZipCodeRangeException, IOException {
+		return read(reader, consumer, null);
+	}
+
+	/**
+	 * Parse all the zip code ranges of a stream, chunk by chunk, reporting and skipping the invalid ranges.
+	 * A bracket still open after MAX_BRACKET_LENGTH chars is reported as an EXTRACT error and skipped up to
+	 * its closing bracket or the end of its line. The reader is not closed.
+	 *
+	 * @param reader	the zip code ranges
+	 * @param consumer	receives the lower and upper bound of every valid range in input order
+	 * @param errorHandler	receives every invalid range in input order, with its position in the stream
+	 * @return the number of chars read from the stream
+	 *
+	 * @throws IOException when the stream cannot be read
+	 */
+	public long parse(Reader reader, ZipCodeRangeConsumer consumer, ZipCodeRangeErrorHandler errorHandler) throws IOException {
+		try {
+			return read(reader, consumer, errorHandler);
+		} catch (InvalidZipCodeRangeException e) {
+			//cannot happen, the invalid ranges are reported to the error handler
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Read and parse a stream, in strict mode when the error handler is null.
+	 */
+	private long read(Reader reader, ZipCodeRangeConsumer consumer, ZipCodeRangeErrorHandler errorHandler) throws InvalidZipCodeRangeException, IOException {
+		char[] buffer = new char[READ_BUFFER_SIZE];
+		CharBuffer chars = CharBuffer.wrap(buffer);
+		int length = 0;
+		long readCount = 0;
+		//the position of the buffer in the stream
+		long[] bufferPosition = { 0 };
+		ZipCodeRangeErrorHandler streamErrorHandler = errorHandler == null ? null
+				: (kind, position, text) -> errorHandler.onError(kind, bufferPosition[0] + position, text);
+		//whether the chars read are the rest of a bracket too long to be a range
+		boolean skipping = false;
+		while (true) {
+			int read = reader.read(buffer, length, buffer.length - length);
+			boolean endOfInput = read < 0;
+			if (!endOfInput) {
+				length += read;
+				readCount += read;
+			}
+
+			int from = 0;
+			if (skipping) {
+				int end = indexOfBracketEnd(chars, 0, length);
+				skipping = end < 0;
+				from = skipping ? length : end + 1;
+			}
+			int parsed = scan(chars, from, length, endOfInput, consumer, streamErrorHandler);
+			if (endOfInput) {
+				return readCount;
+			}
+			if (length - parsed > MAX_BRACKET_LENGTH) {
+				//the bracket has no end in the buffer, it is dropped instead of growing the buffer
+				if (streamErrorHandler == null) {
+					throw new InvalidZipCodeRangeException(ZipCodeRangeErrorKind.EXTRACT, ZipCodeService.EXTRACT_ZIPCODE_RANGE_ERROR);
+				}
+				streamErrorHandler.onError(ZipCodeRangeErrorKind.EXTRACT, parsed, chars.subSequence(parsed, parsed + MAX_BRACKET_LENGTH));
+				skipping = true;
+				parsed = length;
+			}
+			//keep the range cut by the end of the chunk for the next chunk
+			System.arraycopy(buffer, parsed, buffer, 0, length - parsed);
+			length -= parsed;
+			bufferPosition[0] += parsed;
+		}
+	}
+
+	/**
+	 * Parse the zip code ranges found between from (inclusive) and to (exclusive).
+	 *
+	 * When the input continues after to, a range whose closing bracket has not been seen yet
+	 * is left unparsed and its position is returned, so the caller can resume from there
+	 * once the next chunk of input is available.
+	 *
+	 * @param input	the zip code ranges
+	 * @param from	the position to start parsing from
+	 * @param to	the position to stop parsing at
+	 * @param endOfInput	whether the input ends at to
+	 * @param consumer	receives the lower and upper bound of every valid range in input order
+	 * @return the position to resume parsing from, to when all the input has been consumed
+	 *
+	 * @throws InvalidZipCodeRangeException when detects an invalid zip code range
+	 */
+	public int parse(CharSequence input, int from, int to, boolean endOfInput, ZipCodeRangeConsumer consumer) throws InvalidZipCodeRangeException {
+		return scan(input, from, to, endOfInput, consumer, null);
+	}
+
+	/**
+	 * Parse the zip code ranges found between from (inclusive) and to (exclusive), reporting and
+	 * skipping the invalid ranges, see parse(CharSequence, int, int, boolean, ZipCodeRangeConsumer).
+	 *
+	 * @param input	the zip code ranges
+	 * @param from	the position to start parsing from
+	 * @param to	the position to stop parsing at
+	 * @param endOfInput	whether the input ends at to
+	 * @param consumer	receives the lower and upper bound of every valid range in input order
+	 * @param errorHandler	receives every invalid range in input order
+	 * @return the position to resume parsing from, to when all the input has been consumed
+	 */
+	public int parse(CharSequence input, int from, int to, boolean endOfInput, ZipCodeRangeConsumer consumer, ZipCodeRangeErrorHandler errorHandler) {
+		try {
+			return scan(input, from, to, endOfInput, consumer, errorHandler);
+		} catch (InvalidZipCodeRangeException e) {
+			//cannot happen, the invalid ranges are reported to the error handler
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Scan the brackets of the input, in strict mode when the error handler is null.
+	 */
+	private int scan(CharSequence input, int from, int to, boolean endOfInput, ZipCodeRangeConsumer consumer,
+			ZipCodeRangeErrorHandler errorHandler) throws InvalidZipCodeRangeException {
+		int i = from;
+		while (i < to) {
+			if (input.charAt(i) != '[') {
+				i++;
+				continue;
+			}
+
+			//look for the closing bracket, a range cannot span several lines
+			int open = i;
+			int close = indexOfBracketEnd(input, open + 1, to);
+			if (close < 0) {
+				//an unclosed bracket at the end of the input is not a range
+				return endOfInput ? to : open;
+			}
+			if (input.charAt(close) == ']') {
+				parseRange(input, open + 1, close, consumer, errorHandler);
+			}
+			i = close + 1;
+		}
+		return to;
+	}
+
+	/**
+	 * @return the position of the first closing bracket or line terminator between from and to, -1 when there is none
+	 */
+	private static int indexOfBracketEnd(CharSequence input, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = input.charAt(i);
+			if (c == ']' || isLineTerminator(c)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parse the content of one bracket, i.e. the lower and upper bound separated by a comma.
+	 *
+	 * @param input	the zip code ranges
+	 * @param start	the position right after the opening bracket
+	 * @param end	the position of the closing bracket
+	 * @param consumer	receives the lower and upper bound of the range
+	 *
+	 * @throws InvalidZipCodeRangeException when the range is not a valid zip code range
+	 */
+	public void parseRange(CharSequence input, int start, int end, ZipCodeRangeConsumer consumer) throws InvalidZipCodeRangeException {
+		parseRange(input, start, end, consumer, null);
+	}
+
+	/**
+	 * Parse the content of one bracket, in strict mode when the error handler is null.
+	 */
+	private void parseRange(CharSequence input, int start, int end, ZipCodeRangeConsumer consumer,
+			ZipCodeRangeErrorHandler errorHandler) throws InvalidZipCodeRangeException {
+		int firstComma = indexOf(input, ',', start, end);
+		int secondComma = firstComma < 0 ? -1 : indexOf(input, ',', firstComma + 1, end);
+		int upperEnd = secondComma < 0 ? end : secondComma;
+
+		//the range has to split into exactly two fields, like String.split trailing
+		//empty fields are dropped so only commas may follow the upper bound
+		if (firstComma < 0 || upperEnd == firstComma + 1 || !isOnlyCommas(input, upperEnd, end)) {
+			validationError(input, start, end, errorHandler);
+			return;
+		}
+
+		int lowerBound = parseZipCode(input, start, firstComma, false);
+		if (lowerBound < 0) {
+			invalidZipCode(input, start, firstComma, errorHandler);
+			return;
+		}
+		int upperBound = parseZipCode(input, firstComma + 1, upperEnd, true);
+		if (upperBound < 0) {
+			invalidZipCode(input, firstComma + 1, upperEnd, errorHandler);
+			return;
+		}
+
+		//lower bound has to be less than or equal to upper bound
+		if (lowerBound > upperBound) {
+			if (errorHandler == null) {
+				throw new InvalidZipCodeRangeException(ZipCodeRangeErrorKind.OUT_OF_BOUND, MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_OUT_OF_BOUND_ERROR,
+						formatBound(lowerBound), formatBound(upperBound)));
+			}
+			errorHandler.onError(ZipCodeRangeErrorKind.OUT_OF_BOUND, start, input.subSequence(start, end));
+			return;
+		}
+		consumer.accept(lowerBound, upperBound);
+	}
+
+	/**
+	 * Format a zip code with its leading zeros, e.g. 501 is formatted as 00501.
+	 *
+	 * @param zipCode	the zip code
+	 * @return the 5 digits zip code
+	 */
+	public static String formatZipCode(int zipCode) {
+		char[] digits = new char[ZIPCODE_DIGITS];
+		for (int i = ZIPCODE_DIGITS - 1; i >= 0; i--) {
+			digits[i] = (char) ('0' + zipCode % 10);
+			zipCode /= 10;
+		}
+		return new String(digits);
+	}
+
+	/**
+	 * Parse a 5 digits zip code, e.g. 00501 is parsed as 501.
+	 *
+	 * @param zipCode	the zip code
+	 * @return the zip code, -1 when it is not 5 digits
+	 */
+	public static int parseZipCode(CharSequence zipCode) {
+		return zipCode.length() == ZIPCODE_DIGITS ? parseDigits(zipCode, 0, ZIPCODE_DIGITS) : -1;
+	}
+
+	/**
+	 * Format merged zip code ranges in the bracket format the parser reads, e.g. [00501,00600] [94133,94133].
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 * @return the formatted ranges, empty when there is no range
+	 */
+	public static String formatZipCodeRanges(ZipCodeRangeSet zipCodeRangeSet) {
+		StringBuilder sb = new StringBuilder(zipCodeRangeSet.size() * 14);
+		for (int i = 0; i < zipCodeRangeSet.size(); i++) {
+			if (i > 0) {
+				sb.append(' ');
+			}
+			sb.append('[').append(formatZipCode(zipCodeRangeSet.getLowerBound(i)))
+					.append(',').append(formatZipCode(zipCodeRangeSet.getUpperBound(i))).append(']');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Parse a bound surrounded by optional whitespaces.
+	 *
+	 * @return the bound, -1 when it is not valid
+	 */
+	private int parseZipCode(CharSequence input, int start, int end, boolean upperBound) {
+		start = trimStart(input, start, end);
+		return parseBound(input, start, trimEnd(input, start, end), upperBound);
+	}
+
+	/**
+	 * Parse a bound without surrounding whitespaces, a 5 digits zip code.
+	 *
+	 * @param input	the zip code ranges
+	 * @param start	the position of the first char of the bound
+	 * @param end	the position right after the last char of the bound
+	 * @param upperBound	whether the bound is the upper bound of the range
+	 * @return the bound, -1 when it is not valid
+	 */
+	protected int parseBound(CharSequence input, int start, int end, boolean upperBound) {
+		return end - start == ZIPCODE_DIGITS ? parseDigits(input, start, end) : -1;
+	}
+
+	/**
+	 * Format a bound in the error messages.
+	 *
+	 * @param bound	the bound
+	 * @return the 5 digits zip code
+	 */
+	protected String formatBound(int bound) {
+		return formatZipCode(bound);
+	}
+
+	/**
+	 * Parse decimal digits.
+	 *
+	 * @return the number, -1 when a char is not a digit
+	 */
+	protected static int parseDigits(CharSequence input, int start, int end) {
+		int number = 0;
+		for (int i = start; i < end; i++) {
+			char c = input.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			number = number * 10 + (c - '0');
+		}
+		return number;
+	}
+
+	/**
+	 * Report a bound that is not a 5 digits zip code, without its surrounding whitespaces.
+	 */
+	private static void invalidZipCode(CharSequence input, int start, int end, ZipCodeRangeErrorHandler errorHandler) throws InvalidZipCodeRangeException {
+		start = trimStart(input, start, end);
+		validationError(input, start, trimEnd(input, start, end), errorHandler);
+	}
+
+	/**
+	 * Throw the validation error in strict mode, else report it to the error handler.
+	 */
+	private static void validationError(CharSequence input, int start, int end, ZipCodeRangeErrorHandler errorHandler) throws InvalidZipCodeRangeException {
+		if (errorHandler == null) {
+			throw new InvalidZipCodeRangeException(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR,
+					input.subSequence(start, end).toString()));
+		}
+		errorHandler.onError(ZipCodeRangeErrorKind.VALIDATION, start, input.subSequence(start, end));
+	}
+
+	//same as String.trim
+	private static int trimStart(CharSequence input, int start, int end) {
+		while (start < end && input.charAt(start) <= ' ') {
+			start++;
+		}
+		return start;
+	}
+
+	private static int trimEnd(CharSequence input, int start, int end) {
+		while (end > start && input.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		return end;
+	}
+
+	private static int indexOf(CharSequence input, char c, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (input.charAt(i) == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isOnlyCommas(CharSequence input, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (input.charAt(i) != ',') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The line terminators that the dot of PARSE_ZIPCODE_RANGE_REGEX does not match.
+	 */
+	static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+}
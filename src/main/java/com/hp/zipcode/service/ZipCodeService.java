@@ -1,23 +1,36 @@
 package com.hp.zipcode.service;
 
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.exception.ZipCodeRangeErrorKind;
+import com.hp.zipcode.metrics.ZipCodeServiceMetrics;
+import com.hp.zipcode.model.ZipCodeBitmap;
 import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+import com.hp.zipcode.model.ZipCodeRangeError;
+import com.hp.zipcode.model.ZipCodeRangeSet;
 
 /**
  * This service is used to merge overlapping zip code ranges and also validate the ranges.
+ * A service merging in parallel owns a ForkJoinPool, close it once it is not used anymore.
  * 
  * @author Huy Pham
  *
  */
-public class ZipCodeService {
+public class ZipCodeService implements AutoCloseable {
 	//the regular expression to validate the five digits zip code
 	public static final String VALID_ZIPCODE_RANGE_REGEX = "\\d{5}$";
 	
@@ -32,6 +45,107 @@ public class ZipCodeService {
 	public static final String ZIPCODE_RANGE_VALIDATION_ERROR = "The provided zip code range {0} is not a valid zip code range.";
 	public static final String ZIPCODE_RANGE_OUT_OF_BOUND_ERROR = "Lower bound zip code {0} cannot be greater than upper bound zip code {1}.";
 
+	//the size of the segments a zip code range file is memory mapped with
+	public static final int MAPPED_SEGMENT_SIZE = 1 << 30;
+
+	//the input size from which the zip code ranges are merged in parallel
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+
+	//the compiled PARSE_ZIPCODE_RANGE_REGEX
+	private static final Pattern PARSE_ZIPCODE_RANGE_PATTERN = Pattern.compile(PARSE_ZIPCODE_RANGE_REGEX);
+	
+	//the scanner parsing the zip code ranges
+	private final ZipCodeRangeParser zipCodeRangeParser = new ZipCodeRangeParser();
+	
+	//the algorithm merging the zip code ranges
+	private final MergeStrategy mergeStrategy;
+	
+	//the number of threads merging large inputs in parallel, 1 to always merge sequentially
+	private final int parallelism;
+	
+	//merges large inputs in parallel, null when the parallelism is 1
+	private final ParallelZipCodeRangeMerger parallelZipCodeRangeMerger;
+	
+	//the input size from which the zip code ranges are merged in parallel
+	private final int parallelThreshold;
+	
+	//the per phase metrics of the merges, disabled until they are enabled
+	private final ZipCodeServiceMetrics metrics = new ZipCodeServiceMetrics();
+
+	/**
+	 * Create a service that merges the zip code ranges sequentially with the ADAPTIVE strategy.
+	 */
+	public ZipCodeService() {
+		this(MergeStrategy.ADAPTIVE);
+	}
+
+	/**
+	 * Create a service that merges the zip code ranges sequentially with the given strategy.
+	 * 
+	 * @param mergeStrategy	the algorithm merging the zip code ranges
+	 */
+	public ZipCodeService(MergeStrategy mergeStrategy) {
+		this(mergeStrategy, 1);
+	}
+
+	/**
+	 * Create a service that merges the zip code ranges with the given strategy, inputs of at least
+	 * parallelThreshold characters are split in chunks that are parsed, validated and merged in parallel.
+	 * 
+	 * @param mergeStrategy	the algorithm merging the zip code ranges
+	 * @param parallelism	the number of threads merging large inputs, 1 to always merge sequentially
+	 */
+	public ZipCodeService(MergeStrategy mergeStrategy, int parallelism) {
+		this(mergeStrategy, parallelism, DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Create a service that merges the zip code ranges with the given strategy, inputs of at least
+	 * parallelThreshold characters are split in chunks that are parsed, validated and merged in parallel.
+	 * 
+	 * @param mergeStrategy	the algorithm merging the zip code ranges
+	 * @param parallelism	the number of threads merging large inputs, 1 to always merge sequentially
+	 * @param parallelThreshold	the input size from which the zip code ranges are merged in parallel
+	 */
+	public ZipCodeService(MergeStrategy mergeStrategy, int parallelism, int parallelThreshold) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism has to be at least 1.");
+		}
+		this.mergeStrategy = mergeStrategy;
+		this.parallelism = parallelism;
+		this.parallelThreshold = parallelThreshold;
+		this.parallelZipCodeRangeMerger = parallelism > 1 ? new ParallelZipCodeRangeMerger(parallelism, zipCodeRangeParser, mergeStrategy) : null;
+	}
+
+	public MergeStrategy getMergeStrategy() {
+		return mergeStrategy;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Shut down the threads merging large inputs in parallel, nothing to do for a sequential service.
+	 * The merges in progress complete, the service cannot merge large inputs anymore.
+	 */
+	@Override
+	public void close() {
+		if (parallelZipCodeRangeMerger != null) {
+			parallelZipCodeRangeMerger.shutdown();
+		}
+	}
+
+	/**
+	 * @return the per phase metrics of the merges, to enable or to register to JMX
+	 */
+	public ZipCodeServiceMetrics getMetrics() {
+		return metrics;
+	}
 
 	/**
 	 * This method will merge all the overlapping zip code ranges.
@@ -43,18 +157,249 @@ public class ZipCodeService {
 	 * @throws InvalidZipCodeRangeException when detects that the zip code ranges contains invalid ranges.
 	 */
 	public List<ZipCodeRange>  mergeOverlappingZipCodeRanges(String zipCodeRanges) throws InvalidZipCodeRangeException {
+		return mergeZipCodeRanges(zipCodeRanges).toList();
+	}
+
+	/**
+	 * This method will merge all the overlapping zip code ranges into an immutable set of ranges.
+	 * It also validates the zip code ranges.
+	 * 
+	 * @param zipCodeRanges	the string represents the zip code ranges
+	 * @return the set of merged zip code ranges
+	 * 
+	 * @throws InvalidZipCodeRangeException when detects that the zip code ranges contains invalid ranges.
+	 */
+	public ZipCodeRangeSet mergeZipCodeRanges(String zipCodeRanges) throws InvalidZipCodeRangeException {
+		long start = metrics.start();
+		try {
+			if (zipCodeRanges == null || zipCodeRanges.length() == 0) {
+				throw new InvalidZipCodeRangeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, zipCodeRanges));
+			}
+			
+			if (isMergedInParallel(zipCodeRanges.length())) {
+				//the chunks are parsed and merged at the same time, only the whole merge is timed
+				ZipCodeRangeSet mergedZipCodeRanges = parallelZipCodeRangeMerger.merge(zipCodeRanges, 0, zipCodeRanges.length());
+				metrics.recordMerge(start, ZipCodeServiceMetrics.NOT_RECORDED, mergedZipCodeRanges.size());
+				return mergedZipCodeRanges;
+			}
+			
+			//extract, validate and transform the zip code ranges to packed ranges in a single pass
+			ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+			zipCodeRangeParser.parse(zipCodeRanges, zipCodeRangeBuffer);
+			long parsed = metrics.recordParse(start, zipCodeRangeBuffer.size());
+			
+			//finally merge the overlapping zip code ranges
+			ZipCodeRangeSet mergedZipCodeRanges = merge(start, zipCodeRangeBuffer);
+			metrics.recordMerge(start, parsed, mergedZipCodeRanges.size());
+			return mergedZipCodeRanges;
+		} catch (InvalidZipCodeRangeException e) {
+			metrics.recordError(start, e.getKind());
+			throw e;
+		}
+	}
+
+	/**
+	 * This method will merge all the overlapping zip code ranges read from a stream into an immutable set of ranges.
+	 * The stream is parsed chunk by chunk, it is never read into a String.
+	 * It also validates the zip code ranges.
+	 * 
+	 * @param zipCodeRanges	the stream of the zip code ranges, it is not closed
+	 * @return the set of merged zip code ranges
+	 * 
+	 * @throws InvalidZipCodeRangeException when detects that the zip code ranges contains invalid ranges.
+	 * @throws IOException when the stream cannot be read
+	 */
+	public ZipCodeRangeSet mergeZipCodeRangeStream(Reader zipCodeRanges) throws InvalidZipCodeRangeException, IOException {
+		long start = metrics.start();
+		try {
+			ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+			if (zipCodeRangeParser.parse(zipCodeRanges, zipCodeRangeBuffer) == 0) {
+				throw new InvalidZipCodeRangeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, ""));
+			}
+			long parsed = metrics.recordParse(start, zipCodeRangeBuffer.size());
+			
+			ZipCodeRangeSet mergedZipCodeRanges = merge(start, zipCodeRangeBuffer);
+			metrics.recordMerge(start, parsed, mergedZipCodeRanges.size());
+			return mergedZipCodeRanges;
+		} catch (InvalidZipCodeRangeException e) {
+			metrics.recordError(start, e.getKind());
+			throw e;
+		}
+	}
+
+	/**
+	 * This method will merge all the valid overlapping zip code ranges into an immutable set of ranges,
+	 * the invalid ranges are skipped and returned with the merged ranges instead of failing the merge.
+	 * No exception is created for the invalid ranges, so inputs with many of them are merged as fast as valid inputs.
+	 * 
+	 * @param zipCodeRanges	the string represents the zip code ranges
+	 * @return the set of merged valid zip code ranges and the invalid ranges
+	 */
+	public ZipCodeRangeMergeResult mergeZipCodeRangesLeniently(String zipCodeRanges) {
+		long start = metrics.start();
+		List<ZipCodeRangeError> errors = new ArrayList<ZipCodeRangeError>();
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+		if (zipCodeRanges == null || zipCodeRanges.length() == 0) {
+			errors.add(new ZipCodeRangeError(ZipCodeRangeErrorKind.VALIDATION, 0, ""));
+		} else {
+			zipCodeRangeParser.parse(zipCodeRanges, zipCodeRangeBuffer,
+					(kind, position, text) -> errors.add(new ZipCodeRangeError(kind, position, text.toString())));
+		}
+		return mergeLeniently(start, zipCodeRangeBuffer, errors);
+	}
+
+	/**
+	 * This method will merge all the valid overlapping zip code ranges read from a stream into an immutable set of ranges,
+	 * the invalid ranges are skipped and returned with the merged ranges instead of failing the merge.
+	 * 
+	 * @param zipCodeRanges	the stream of the zip code ranges, it is not closed
+	 * @return the set of merged valid zip code ranges and the invalid ranges, with their position in the stream
+	 * 
+	 * @throws IOException when the stream cannot be read
+	 */
+	public ZipCodeRangeMergeResult mergeZipCodeRangeStreamLeniently(Reader zipCodeRanges) throws IOException {
+		long start = metrics.start();
+		List<ZipCodeRangeError> errors = new ArrayList<ZipCodeRangeError>();
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+		if (zipCodeRangeParser.parse(zipCodeRanges, zipCodeRangeBuffer,
+				(kind, position, text) -> errors.add(new ZipCodeRangeError(kind, position, text.toString()))) == 0) {
+			errors.add(new ZipCodeRangeError(ZipCodeRangeErrorKind.VALIDATION, 0, ""));
+		}
+		return mergeLeniently(start, zipCodeRangeBuffer, errors);
+	}
+
+	private ZipCodeRangeMergeResult mergeLeniently(long start, ZipCodeRangeBuffer zipCodeRangeBuffer, List<ZipCodeRangeError> errors) {
+		long parsed = metrics.recordParse(start, zipCodeRangeBuffer.size());
+		ZipCodeRangeSet mergedZipCodeRanges = merge(start, zipCodeRangeBuffer);
+		metrics.recordMerge(start, parsed, mergedZipCodeRanges.size());
+		for (ZipCodeRangeError error : errors) {
+			metrics.recordSkippedError(start, error.getKind());
+		}
+		return new ZipCodeRangeMergeResult(mergedZipCodeRanges, errors);
+	}
+
+	/**
+	 * This method will merge all the overlapping zip code ranges into a lookup answering which zip codes
+	 * are covered and which input ranges cover them.
+	 * It also validates the zip code ranges.
+	 * 
+	 * @param zipCodeRanges	the string represents the zip code ranges
+	 * @return the lookup over the merged zip code ranges
+	 * 
+	 * @throws InvalidZipCodeRangeException when detects that the zip code ranges contains invalid ranges.
+	 */
+	public ZipCodeRangeLookup buildZipCodeRangeLookup(String zipCodeRanges) throws InvalidZipCodeRangeException {
 		if (zipCodeRanges == null || zipCodeRanges.length() == 0) {
 			throw new InvalidZipCodeRangeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, zipCodeRanges));
 		}
 		
-		//extract the zip code ranges first
-		List<String> zipCodeRangeStringList = extractZipcodeRanges(zipCodeRanges);	
-		
-		//validate the zip code ranges and transform it to a list of type ZipcodeRange
-		List<ZipCodeRange> zipCodeRangeList = validateAndTransformZipcodeRanges(zipCodeRangeStringList);
-		
-		//finally merge the overlapping zip code ranges
-		return doMergeZipCodeRanges(zipCodeRangeList);
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+		zipCodeRangeParser.parse(zipCodeRanges, zipCodeRangeBuffer);
+		return new ZipCodeRangeLookup(Arrays.copyOf(zipCodeRangeBuffer.ranges(), zipCodeRangeBuffer.size()));
+	}
+
+	/**
+	 * This method will merge all the overlapping zip code ranges of an ASCII file into an immutable set of ranges.
+	 * The file is memory mapped segment by segment and parsed straight from the mapped bytes,
+	 * it is never decoded into a String so files larger than the heap or than 2 GB can be merged.
+	 * The ranges are marked in a bitmap of the zip code domain as they are parsed instead of being buffered,
+	 * so the heap used does not grow with the size of the file.
+	 * It also validates the zip code ranges.
+	 * 
+	 * @param zipCodeRangeFile	the file holding the zip code ranges
+	 * @return the set of merged zip code ranges
+	 * 
+	 * @throws InvalidZipCodeRangeException when detects that the zip code ranges contains invalid ranges.
+	 * @throws IOException when the file cannot be read
+	 */
+	public ZipCodeRangeSet mergeZipCodeRangeFile(Path zipCodeRangeFile) throws InvalidZipCodeRangeException, IOException {
+		return mergeZipCodeRangeFile(zipCodeRangeFile, MAPPED_SEGMENT_SIZE);
+	}
+
+	ZipCodeRangeSet mergeZipCodeRangeFile(Path zipCodeRangeFile, int segmentSize) throws InvalidZipCodeRangeException, IOException {
+		long start = metrics.start();
+		try (FileChannel channel = FileChannel.open(zipCodeRangeFile, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize == 0) {
+				throw new InvalidZipCodeRangeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, ""));
+			}
+			
+			ZipCodeBitmap zipCodeBitmap = new ZipCodeBitmap();
+			long[] rangeCount = { 0 };
+			ZipCodeRangeConsumer consumer = (lowerBound, upperBound) -> {
+				zipCodeBitmap.set(lowerBound, upperBound);
+				rangeCount[0]++;
+			};
+			long position = 0;
+			while (position < fileSize) {
+				int length = (int) Math.min(segmentSize, fileSize - position);
+				boolean endOfFile = position + length == fileSize;
+				MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				CharSequence segmentChars = new ByteBufferCharSequence(segment);
+				
+				//a range cut by the end of the segment is parsed again from the start of the next segment
+				int parsed = 0;
+				if (isMergedInParallel(length)) {
+					parsed = endOfFile ? length : ParallelZipCodeRangeMerger.lastRangeBoundary(segmentChars, 0, length);
+					if (parsed > 0) {
+						parallelZipCodeRangeMerger.merge(segmentChars, 0, parsed).forEach(zipCodeBitmap::set);
+					}
+				}
+				if (parsed == 0) {
+					parsed = zipCodeRangeParser.parse(segmentChars, 0, length, endOfFile, consumer);
+				}
+				if (parsed == 0) {
+					//a single bracket spans the whole segment
+					throw new InvalidZipCodeRangeException(ZipCodeRangeErrorKind.EXTRACT, EXTRACT_ZIPCODE_RANGE_ERROR);
+				}
+				position += parsed;
+			}
+			//the ranges of the segments merged in parallel are timed with the parse phase but not counted
+			long parsed = metrics.recordParse(start, (int) Math.min(rangeCount[0], Integer.MAX_VALUE));
+			metrics.recordMergeStrategy(start, MergeStrategy.BITMAP.name());
+			
+			ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder();
+			zipCodeBitmap.forEachRun(builder);
+			ZipCodeRangeSet mergedZipCodeRanges = builder.build();
+			metrics.recordMerge(start, parsed, mergedZipCodeRanges.size());
+			return mergedZipCodeRanges;
+		} catch (InvalidZipCodeRangeException e) {
+			metrics.recordError(start, e.getKind());
+			throw e;
+		}
+	}
+
+	/**
+	 * This method validates a zip code range given by its bounds.
+	 * 
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 * 
+	 * @throws InvalidZipCodeRangeException when a bound is not a 5 digits zip code or the lower bound is greater than the upper bound
+	 */
+	public static void validateZipCodeRange(int lowerBound, int upperBound) throws InvalidZipCodeRangeException {
+		if (lowerBound < ZipCodeRange.MIN_ZIP_CODE || upperBound > ZipCodeRange.MAX_ZIP_CODE) {
+			throw new InvalidZipCodeRangeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR,
+					new ZipCodeRange(lowerBound, upperBound).toString()));
+		}
+		if (lowerBound > upperBound) {
+			throw new InvalidZipCodeRangeException(ZipCodeRangeErrorKind.OUT_OF_BOUND, MessageFormat.format(ZIPCODE_RANGE_OUT_OF_BOUND_ERROR,
+					ZipCodeRangeParser.formatZipCode(lowerBound), ZipCodeRangeParser.formatZipCode(upperBound)));
+		}
+	}
+
+	/**
+	 * Merge the parsed ranges with the strategy planned from their statistics, the planned strategies
+	 * are counted by the metrics.
+	 */
+	private ZipCodeRangeSet merge(long start, ZipCodeRangeBuffer zipCodeRangeBuffer) {
+		MergeStrategy plannedMergeStrategy = mergeStrategy.plan(zipCodeRangeBuffer);
+		metrics.recordMergeStrategy(start, plannedMergeStrategy.name());
+		return plannedMergeStrategy.merge(zipCodeRangeBuffer);
+	}
+
+	private boolean isMergedInParallel(int inputSize) {
+		return parallelZipCodeRangeMerger != null && inputSize >= parallelThreshold;
 	}
 
 	/**
@@ -68,15 +413,13 @@ public class ZipCodeService {
 	protected List<String> extractZipcodeRanges(String zipCodeRanges) throws InvalidZipCodeRangeException {
 		List<String> zipCodeRangeList = new ArrayList<String>();
 		try {
-			//compile the given expression to a pattern to match the zip code ranges in the bracket
-			Pattern p3 = Pattern.compile(PARSE_ZIPCODE_RANGE_REGEX);
-
-			Matcher m3 = p3.matcher(zipCodeRanges);
+			//match the zip code ranges in the bracket
+			Matcher m3 = PARSE_ZIPCODE_RANGE_PATTERN.matcher(zipCodeRanges);
 			while (m3.find()) {
 				zipCodeRangeList.add(m3.group(1));
 			}			
 		} catch (Exception e) {
-			throw new InvalidZipCodeRangeException(EXTRACT_ZIPCODE_RANGE_ERROR);
+			throw new InvalidZipCodeRangeException(ZipCodeRangeErrorKind.EXTRACT, EXTRACT_ZIPCODE_RANGE_ERROR);
 		}
 
 
@@ -94,40 +437,9 @@ public class ZipCodeService {
 	protected List<ZipCodeRange> validateAndTransformZipcodeRanges(List<String> zipCodeRanges) throws InvalidZipCodeRangeException {
 		List<ZipCodeRange> zipCodeRangesList = new ArrayList<ZipCodeRange>();
 		
-		try {
-			zipCodeRanges.forEach(i -> {
-				// splits the input range by comma
-				String[] rangeArr = i.split(COMMA_DELIMITER);
-
-				if (rangeArr.length == 2) {
-					rangeArr[0] = rangeArr[0].trim();
-					rangeArr[1] = rangeArr[1].trim();
-					
-					//validate the lower bound
-					//cannot throw checked exception in a Lambda Expressions so have to throw non-checked exception
-					if (!rangeArr[0].trim().matches(VALID_ZIPCODE_RANGE_REGEX)) {
-						throw new RuntimeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, rangeArr[0]));
-					}
-					
-					//validate the upper bound
-					if (!rangeArr[1].trim().matches(VALID_ZIPCODE_RANGE_REGEX)) {
-						throw new RuntimeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, rangeArr[1]));
-					}
-					
-					ZipCodeRange zipcodeRange = new ZipCodeRange(Integer.parseInt(rangeArr[0]), Integer.parseInt(rangeArr[1]));
-					
-					//lower bound has to be less than or equal to upper bound else throw exception
-					if (zipcodeRange.getLowerBound() > zipcodeRange.getUpperBound()) {
-						throw new RuntimeException(MessageFormat.format(ZIPCODE_RANGE_OUT_OF_BOUND_ERROR, rangeArr[0], rangeArr[1]));
-					}					
-					zipCodeRangesList.add(zipcodeRange);
-				} else {
-					throw new RuntimeException(MessageFormat.format(ZIPCODE_RANGE_VALIDATION_ERROR, i));	
-				}
-			});			
-		//trap non-checked exception and re-throw as a checked exception
-		} catch (Exception e) {
-			throw new InvalidZipCodeRangeException(e.getMessage());
+		for (String zipCodeRange : zipCodeRanges) {
+			zipCodeRangeParser.parseRange(zipCodeRange, 0, zipCodeRange.length(),
+					(lowerBound, upperBound) -> zipCodeRangesList.add(new ZipCodeRange(lowerBound, upperBound)));
 		}
 
 		return zipCodeRangesList;
@@ -142,24 +454,11 @@ public class ZipCodeService {
 	 * 
 	 */
 	protected List<ZipCodeRange> doMergeZipCodeRanges(List<ZipCodeRange> zipCodeRanges) {
-        	//sort the zip code ranges in ascending order of the lower bound
-		zipCodeRanges.sort((ZipCodeRange o1, ZipCodeRange o2) -> o1.getLowerBound() - (o2.getLowerBound()));
-		
-		//now do the merge
-        	LinkedList<ZipCodeRange> mergedZipcodeRanges = new LinkedList<ZipCodeRange>();
-        	for (ZipCodeRange zipcodeRange : zipCodeRanges) {
-            		// if the list of merged zip code ranges is empty or if the current
-            		// zip code range does not overlap with the previous one then just append it.
-            		if (mergedZipcodeRanges.isEmpty() || mergedZipcodeRanges.getLast().getUpperBound() < (zipcodeRange.getLowerBound() - 1)) {
-            			mergedZipcodeRanges.add(zipcodeRange);
-            		}
-            		// otherwise, there is overlap, so we merge the current and previous zip code range.
-            		else {
-            			mergedZipcodeRanges.getLast().setUpperBound( Math.max(mergedZipcodeRanges.getLast().getUpperBound(), zipcodeRange.getUpperBound()));
-            		}
-        	}
-        
-		return mergedZipcodeRanges;
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer(zipCodeRanges.size());
+		for (ZipCodeRange zipCodeRange : zipCodeRanges) {
+			zipCodeRangeBuffer.accept(zipCodeRange.getLowerBound(), zipCodeRange.getUpperBound());
+		}
+		return merge(ZipCodeServiceMetrics.NOT_RECORDED, zipCodeRangeBuffer).toList();
 	}
 
 }
@@ -0,0 +1,290 @@
+package com.hp.zipcode.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ * Compact binary snapshot of merged zip code ranges, to load them at startup without parsing
+ * and merging the bracket format again.
+ *
+ * The snapshot is a 20 bytes header: the magic ZIPR, the format version (2 bytes), 2 reserved bytes,
+ * the number of ranges, the payload length and the CRC32 of the payload (4 bytes each, big endian).
+ * The payload holds for every range the gap from the previous upper bound then the length of the range,
+ * both as unsigned varints, so most ranges take 2 to 4 bytes.
+ *
+ * A snapshot is read from a memory mapped file and answers queries from the mapped bytes and a bitmap
+ * of the covered zip codes, without creating a ZipCodeRange per range.
+ *
+ * @author Huy Pham
+ *
+ */
+public final class ZipCodeRangeSnapshot {
+	public static final int MAGIC = 0x5A495052; //ZIPR
+	public static final short VERSION = 1;
+	public static final int HEADER_SIZE = 20;
+
+	//a varint of a zip code takes at most 3 bytes
+	private static final int MAX_RANGE_SIZE = 6;
+
+	//the varint encoded ranges
+	private final ByteBuffer payload;
+	private final int rangeCount;
+
+	//the zip codes covered by the ranges
+	private final ZipCodeBitmap coverage = new ZipCodeBitmap();
+
+	private ZipCodeRangeSnapshot(ByteBuffer payload, int rangeCount) throws IOException {
+		this.payload = payload;
+		this.rangeCount = rangeCount;
+
+		//decode once to check the ranges and to mark the covered zip codes, the first invalid range is reported
+		int[] index = { 0 };
+		int[] previousUpperBound = { -1 };
+		String[] invalidRange = { null };
+		int decoded = decode(payload, rangeCount, (lowerBound, upperBound) -> {
+			if (invalidRange[0] == null) {
+				String error = checkRange(lowerBound, upperBound, previousUpperBound[0]);
+				if (error != null) {
+					invalidRange[0] = "range " + index[0] + " [" + lowerBound + "," + upperBound + "] " + error;
+				} else {
+					coverage.set(lowerBound, upperBound);
+					previousUpperBound[0] = upperBound;
+				}
+			}
+			index[0]++;
+		});
+		if (invalidRange[0] != null) {
+			throw new IOException("Invalid zip code range snapshot: " + invalidRange[0] + ".");
+		}
+		if (decoded != payload.limit()) {
+			throw new IOException("Invalid zip code range snapshot: the payload does not hold " + rangeCount + " ranges.");
+		}
+	}
+
+	/**
+	 * Write the snapshot of merged zip code ranges to a file, replacing it if it exists.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 * @param snapshotFile	the file
+	 * @throws IOException when the file cannot be written
+	 */
+	public static void write(ZipCodeRangeSet zipCodeRangeSet, Path snapshotFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(zipCodeRangeSet, channel);
+		}
+	}
+
+	/**
+	 * Write the snapshot of merged zip code ranges to a channel, the channel is not closed.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 * @param channel	the channel
+	 * @throws IOException when the channel cannot be written
+	 */
+	public static void write(ZipCodeRangeSet zipCodeRangeSet, WritableByteChannel channel) throws IOException {
+		ByteBuffer snapshot = encode(zipCodeRangeSet);
+		while (snapshot.hasRemaining()) {
+			channel.write(snapshot);
+		}
+	}
+
+	/**
+	 * Encode the snapshot of merged zip code ranges.
+	 *
+	 * @param zipCodeRangeSet	the merged zip code ranges
+	 * @return the snapshot, ready to be read
+	 */
+	public static ByteBuffer encode(ZipCodeRangeSet zipCodeRangeSet) {
+		ByteBuffer snapshot = ByteBuffer.allocate(HEADER_SIZE + zipCodeRangeSet.size() * MAX_RANGE_SIZE);
+		snapshot.position(HEADER_SIZE);
+		int previousUpperBound = -1;
+		for (int i = 0; i < zipCodeRangeSet.size(); i++) {
+			int lowerBound = zipCodeRangeSet.getLowerBound(i);
+			int upperBound = zipCodeRangeSet.getUpperBound(i);
+			putVarint(snapshot, lowerBound - (previousUpperBound + 1));
+			putVarint(snapshot, upperBound - lowerBound);
+			previousUpperBound = upperBound;
+		}
+		int payloadLength = snapshot.position() - HEADER_SIZE;
+
+		CRC32 crc = new CRC32();
+		crc.update(snapshot.array(), HEADER_SIZE, payloadLength);
+		snapshot.putInt(0, MAGIC);
+		snapshot.putShort(4, VERSION);
+		snapshot.putShort(6, (short) 0);
+		snapshot.putInt(8, zipCodeRangeSet.size());
+		snapshot.putInt(12, payloadLength);
+		snapshot.putInt(16, (int) crc.getValue());
+		snapshot.flip();
+		return snapshot;
+	}
+
+	/**
+	 * Memory map a snapshot file and check its header and checksum.
+	 *
+	 * @param snapshotFile	the file
+	 * @return the snapshot
+	 * @throws IOException when the file cannot be read or is not a valid snapshot
+	 */
+	public static ZipCodeRangeSnapshot open(Path snapshotFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+			MappedByteBuffer snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(snapshot);
+		}
+	}
+
+	/**
+	 * Read a snapshot and check its header and checksum, the bytes are used as they are, not copied.
+	 *
+	 * @param snapshot	the snapshot from its position to its limit
+	 * @return the snapshot
+	 * @throws IOException when the bytes are not a valid snapshot
+	 */
+	public static ZipCodeRangeSnapshot read(ByteBuffer snapshot) throws IOException {
+		ByteBuffer bytes = snapshot.slice();
+		if (bytes.remaining() < HEADER_SIZE || bytes.getInt(0) != MAGIC) {
+			throw new IOException("Invalid zip code range snapshot: bad magic number.");
+		}
+		if (bytes.getShort(4) != VERSION) {
+			throw new IOException("Unsupported zip code range snapshot version " + bytes.getShort(4) + ".");
+		}
+		int rangeCount = bytes.getInt(8);
+		int payloadLength = bytes.getInt(12);
+		if (rangeCount < 0 || payloadLength < 0 || payloadLength > bytes.remaining() - HEADER_SIZE) {
+			throw new IOException("Invalid zip code range snapshot: truncated payload.");
+		}
+
+		bytes.position(HEADER_SIZE);
+		bytes.limit(HEADER_SIZE + payloadLength);
+		ByteBuffer payload = bytes.slice();
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+		if ((int) crc.getValue() != bytes.getInt(16)) {
+			throw new IOException("Invalid zip code range snapshot: checksum mismatch.");
+		}
+
+		try {
+			return new ZipCodeRangeSnapshot(payload, rangeCount);
+		} catch (IndexOutOfBoundsException e) {
+			throw new IOException("Invalid zip code range snapshot: the payload ends before " + rangeCount + " ranges.", e);
+		}
+	}
+
+	/**
+	 * @return the number of ranges
+	 */
+	public int size() {
+		return rangeCount;
+	}
+
+	/**
+	 * Check whether a zip code is covered by the ranges in constant time.
+	 *
+	 * @param zipCode	the zip code
+	 * @return true when the zip code is covered
+	 */
+	public boolean contains(int zipCode) {
+		return coverage.contains(zipCode);
+	}
+
+	/**
+	 * Decode the ranges in ascending order straight from the snapshot bytes.
+	 *
+	 * @param consumer	receives the lower and upper bound of every range
+	 */
+	public void forEach(ZipCodeRangeConsumer consumer) {
+		decode(payload, rangeCount, consumer);
+	}
+
+	/**
+	 * @return the merged zip code ranges
+	 */
+	public ZipCodeRangeSet toRangeSet() {
+		ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder(rangeCount);
+		forEach(builder);
+		return builder.build();
+	}
+
+	/**
+	 * @return a copy of the bitmap of the covered zip codes
+	 */
+	public ZipCodeBitmap toBitmap() {
+		ZipCodeBitmap zipCodeBitmap = new ZipCodeBitmap();
+		coverage.forEachRun(zipCodeBitmap::set);
+		return zipCodeBitmap;
+	}
+
+	/**
+	 * Check a decoded range against the domain and the previous range.
+	 *
+	 * @return why the range is invalid, null when it is valid
+	 */
+	private static String checkRange(int lowerBound, int upperBound, int previousUpperBound) {
+		if (lowerBound < ZipCodeRange.MIN_ZIP_CODE || upperBound > ZipCodeRange.MAX_ZIP_CODE) {
+			return "is out of the zip code domain";
+		}
+		if (upperBound < lowerBound) {
+			return "has an upper bound below its lower bound";
+		}
+		if (previousUpperBound >= 0 && lowerBound <= previousUpperBound + 1) {
+			return "is not merged with the previous range";
+		}
+		return null;
+	}
+
+	/**
+	 * Decode the ranges of the payload.
+	 *
+	 * @return the position right after the last decoded range
+	 */
+	private static int decode(ByteBuffer payload, int rangeCount, ZipCodeRangeConsumer consumer) {
+		int position = 0;
+		int previousUpperBound = -1;
+		for (int i = 0; i < rangeCount; i++) {
+			//the gap from the previous upper bound
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = payload.get(position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			int lowerBound = previousUpperBound + 1 + value;
+
+			//the length of the range
+			value = 0;
+			shift = 0;
+			do {
+				b = payload.get(position++);
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			int upperBound = lowerBound + value;
+
+			consumer.accept(lowerBound, upperBound);
+			previousUpperBound = upperBound;
+		}
+		return position;
+	}
+
+	private static void putVarint(ByteBuffer buffer, int value) {
+		while ((value & ~0x7F) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+}
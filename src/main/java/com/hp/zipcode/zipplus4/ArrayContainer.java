@@ -0,0 +1,92 @@
+package com.hp.zipcode.zipplus4;
+
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+
+/**
+ * A container holding sorted values, the smallest container for sparse single zip codes.
+ * It is only created when a chunk is optimized, adding a range turns it into a run container.
+ *
+ * @author Huy Pham
+ *
+ */
+final class ArrayContainer extends Container {
+	private final char[] values;
+
+	private ArrayContainer(char[] values) {
+		this.values = values;
+	}
+
+	/**
+	 * @return an array container holding the values of another container
+	 */
+	static ArrayContainer of(Container container) {
+		char[] values = new char[container.getCardinality()];
+		int[] size = { 0 };
+		container.forEachRun(0, (lowerBound, upperBound) -> {
+			for (int value = lowerBound; value <= upperBound; value++) {
+				values[size[0]++] = (char) value;
+			}
+		});
+		return new ArrayContainer(values);
+	}
+
+	static long sizeInBytes(int cardinality) {
+		return 2L * cardinality;
+	}
+
+	@Override
+	Container add(int lowerBound, int upperBound) {
+		return RunContainer.of(this).add(lowerBound, upperBound);
+	}
+
+	@Override
+	boolean contains(int value) {
+		int low = 0;
+		int high = values.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] < value) {
+				low = middle + 1;
+			} else if (values[middle] > value) {
+				high = middle - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	int getCardinality() {
+		return values.length;
+	}
+
+	@Override
+	int getRunCount() {
+		int runCount = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (i == 0 || values[i] != values[i - 1] + 1) {
+				runCount++;
+			}
+		}
+		return runCount;
+	}
+
+	@Override
+	int getSizeInBytes() {
+		return (int) sizeInBytes(values.length);
+	}
+
+	@Override
+	void forEachRun(int base, ZipCodeRangeConsumer consumer) {
+		int i = 0;
+		while (i < values.length) {
+			int lowerBound = values[i];
+			while (i + 1 < values.length && values[i + 1] == values[i] + 1) {
+				i++;
+			}
+			consumer.accept(base + lowerBound, base + values[i]);
+			i++;
+		}
+	}
+}
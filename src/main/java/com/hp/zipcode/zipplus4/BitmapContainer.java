@@ -0,0 +1,71 @@
+package com.hp.zipcode.zipplus4;
+
+import com.hp.zipcode.model.ZipCodeBitmap;
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+
+/**
+ * A container holding one bit per value of the chunk, the container of chunks with many runs.
+ *
+ * @author Huy Pham
+ *
+ */
+final class BitmapContainer extends Container {
+	private static final int WORD_COUNT = CHUNK_SIZE / 64;
+
+	private final long[] words = new long[WORD_COUNT];
+
+	/**
+	 * @return a bitmap container holding the values of another container
+	 */
+	static BitmapContainer of(Container container) {
+		BitmapContainer bitmapContainer = new BitmapContainer();
+		container.forEachRun(0, bitmapContainer::set);
+		return bitmapContainer;
+	}
+
+	private void set(int lowerBound, int upperBound) {
+		ZipCodeBitmap.setRange(words, lowerBound, upperBound);
+	}
+
+	@Override
+	Container add(int lowerBound, int upperBound) {
+		set(lowerBound, upperBound);
+		return this;
+	}
+
+	@Override
+	boolean contains(int value) {
+		return (words[value >>> 6] & (1L << value)) != 0;
+	}
+
+	@Override
+	int getCardinality() {
+		int cardinality = 0;
+		for (long word : words) {
+			cardinality += Long.bitCount(word);
+		}
+		return cardinality;
+	}
+
+	@Override
+	int getRunCount() {
+		//count the first bits of the runs, a bit set whose lower neighbour is not
+		int runCount = 0;
+		long previousHighBit = 0;
+		for (long word : words) {
+			runCount += Long.bitCount(word & ~((word << 1) | previousHighBit));
+			previousHighBit = word >>> 63;
+		}
+		return runCount;
+	}
+
+	@Override
+	int getSizeInBytes() {
+		return BITMAP_SIZE_IN_BYTES;
+	}
+
+	@Override
+	void forEachRun(int base, ZipCodeRangeConsumer consumer) {
+		ZipCodeBitmap.forEachRun(words, 0, WORD_COUNT, base, consumer);
+	}
+}
@@ -0,0 +1,73 @@
+package com.hp.zipcode.zipplus4;
+
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+
+/**
+ * The values of one 64K chunk of a ZipPlus4Bitmap, the low 16 bits of the values.
+ *
+ * @author Huy Pham
+ *
+ */
+abstract class Container {
+	//the number of values of a chunk
+	static final int CHUNK_SIZE = 1 << 16;
+
+	//the size of a bitmap container, one bit per value of the chunk
+	static final int BITMAP_SIZE_IN_BYTES = CHUNK_SIZE / 8;
+
+	/**
+	 * Add a range of values.
+	 *
+	 * @param lowerBound	the lower bound, from 0 to 65535
+	 * @param upperBound	the upper bound, from lowerBound to 65535
+	 * @return the container holding the values, this container or a new one
+	 */
+	abstract Container add(int lowerBound, int upperBound);
+
+	/**
+	 * @param value	the value, from 0 to 65535
+	 * @return true when the value is in the container
+	 */
+	abstract boolean contains(int value);
+
+	/**
+	 * @return the number of values
+	 */
+	abstract int getCardinality();
+
+	/**
+	 * @return the number of runs of consecutive values
+	 */
+	abstract int getRunCount();
+
+	/**
+	 * @return the approximate size of the values in memory
+	 */
+	abstract int getSizeInBytes();
+
+	/**
+	 * Scan the runs of consecutive values in ascending order.
+	 *
+	 * @param base	the value added to the values of the container, the first value of the chunk
+	 * @param consumer	receives the lower and upper bound of every run
+	 */
+	abstract void forEachRun(int base, ZipCodeRangeConsumer consumer);
+
+	/**
+	 * Choose the smallest container for the values: 2 bytes per value for an array, 4 bytes
+	 * per run for a run container and 8 KB for a bitmap.
+	 *
+	 * @return the smallest container, this container when it is already the smallest
+	 */
+	Container optimize() {
+		long arraySize = ArrayContainer.sizeInBytes(getCardinality());
+		long runSize = RunContainer.sizeInBytes(getRunCount());
+		if (runSize <= arraySize && runSize < BITMAP_SIZE_IN_BYTES) {
+			return this instanceof RunContainer ? this : RunContainer.of(this);
+		}
+		if (arraySize < BITMAP_SIZE_IN_BYTES) {
+			return this instanceof ArrayContainer ? this : ArrayContainer.of(this);
+		}
+		return this instanceof BitmapContainer ? this : BitmapContainer.of(this);
+	}
+}
@@ -0,0 +1,145 @@
+package com.hp.zipcode.zipplus4;
+
+import java.util.Arrays;
+
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+
+/**
+ * A container holding the runs of consecutive values as sorted pairs of lower and upper bounds,
+ * the container ranges are added to. Adding a range merges it with the runs it overlaps or touches
+ * in O(log r + r) for r runs, and appending a range after the last run is O(1).
+ *
+ * @author Huy Pham
+ *
+ */
+final class RunContainer extends Container {
+	//the number of runs from which a bitmap is smaller
+	static final int MAX_RUN_COUNT = BITMAP_SIZE_IN_BYTES / 4;
+
+	//the lower and upper bound of every run
+	private char[] bounds;
+	private int runCount;
+
+	RunContainer() {
+		bounds = new char[4];
+	}
+
+	/**
+	 * @return a run container holding the values of another container
+	 */
+	static RunContainer of(Container container) {
+		RunContainer runContainer = new RunContainer();
+		runContainer.bounds = new char[Math.max(2, container.getRunCount() * 2)];
+		container.forEachRun(0, runContainer::append);
+		return runContainer;
+	}
+
+	static long sizeInBytes(int runCount) {
+		return 4L * runCount;
+	}
+
+	@Override
+	Container add(int lowerBound, int upperBound) {
+		//append after the last run, the common case of ranges sorted by lower bound
+		if (runCount == 0 || lowerBound > upperBound(runCount - 1) + 1) {
+			append(lowerBound, upperBound);
+		} else {
+			//the first run ending at or after the value before the lower bound
+			int first = firstRunEndingAtOrAfter(lowerBound - 1);
+			int last = first;
+			while (last < runCount && lowerBound(last) <= upperBound + 1) {
+				lowerBound = Math.min(lowerBound, lowerBound(last));
+				upperBound = Math.max(upperBound, upperBound(last));
+				last++;
+			}
+
+			//replace the runs from first to last (exclusive) by the merged run
+			int merged = last - first;
+			if (merged == 0) {
+				ensureCapacity(runCount + 1);
+				System.arraycopy(bounds, 2 * first, bounds, 2 * first + 2, 2 * (runCount - first));
+				runCount++;
+			} else if (merged > 1) {
+				System.arraycopy(bounds, 2 * last, bounds, 2 * first + 2, 2 * (runCount - last));
+				runCount -= merged - 1;
+			}
+			bounds[2 * first] = (char) lowerBound;
+			bounds[2 * first + 1] = (char) upperBound;
+		}
+		return runCount > MAX_RUN_COUNT ? BitmapContainer.of(this) : this;
+	}
+
+	private void append(int lowerBound, int upperBound) {
+		if (runCount > 0 && lowerBound == upperBound(runCount - 1) + 1) {
+			bounds[2 * runCount - 1] = (char) upperBound;
+			return;
+		}
+		ensureCapacity(runCount + 1);
+		bounds[2 * runCount] = (char) lowerBound;
+		bounds[2 * runCount + 1] = (char) upperBound;
+		runCount++;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (2 * capacity > bounds.length) {
+			bounds = Arrays.copyOf(bounds, Math.max(2 * capacity, bounds.length * 2));
+		}
+	}
+
+	private int lowerBound(int run) {
+		return bounds[2 * run];
+	}
+
+	private int upperBound(int run) {
+		return bounds[2 * run + 1];
+	}
+
+	/**
+	 * Binary search of the first run whose upper bound is at least the value, runCount when there is none.
+	 */
+	private int firstRunEndingAtOrAfter(int value) {
+		int low = 0;
+		int high = runCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (upperBound(middle) < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	@Override
+	boolean contains(int value) {
+		int run = firstRunEndingAtOrAfter(value);
+		return run < runCount && lowerBound(run) <= value;
+	}
+
+	@Override
+	int getCardinality() {
+		int cardinality = 0;
+		for (int i = 0; i < runCount; i++) {
+			cardinality += upperBound(i) - lowerBound(i) + 1;
+		}
+		return cardinality;
+	}
+
+	@Override
+	int getRunCount() {
+		return runCount;
+	}
+
+	@Override
+	int getSizeInBytes() {
+		return (int) sizeInBytes(runCount);
+	}
+
+	@Override
+	void forEachRun(int base, ZipCodeRangeConsumer consumer) {
+		for (int i = 0; i < runCount; i++) {
+			consumer.accept(base + lowerBound(i), base + upperBound(i));
+		}
+	}
+}
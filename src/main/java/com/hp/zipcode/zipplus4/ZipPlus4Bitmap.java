@@ -0,0 +1,187 @@
+package com.hp.zipcode.zipplus4;
+
+import java.util.Arrays;
+
+import com.hp.zipcode.model.ZipCodeRangeConsumer;
+
+/**
+ * A compressed bitmap of ZIP+4 codes, 12345-6789 being the value 123456789, that merges ranges as they are added.
+ *
+ * Like a Roaring bitmap, the 10^9 values are split in 64K chunks by their high 16 bits, and only the chunks
+ * holding values have a container, found by a binary search of the sorted chunk keys. A chunk is held by
+ * the smallest of 3 containers: sorted runs, sorted values or a bitmap of the chunk, so the memory stays
+ * proportional to the number of runs, and is at most 8 KB per chunk however many ranges are added.
+ * Ranges are added to run containers, which turn into bitmaps when they have too many runs, and optimize
+ * picks the smallest container of every chunk once the ranges are added.
+ *
+ * The runs of the bitmap are the merged ranges, runs touching at a chunk boundary are merged.
+ * This class is not thread safe.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipPlus4Bitmap implements ZipCodeRangeConsumer {
+	//the lowest and highest ZIP+4 codes, 00000-0000 and 99999-9999
+	public static final int MIN_ZIP_PLUS_4 = 0;
+	public static final int MAX_ZIP_PLUS_4 = 999999999;
+
+	//the sorted high 16 bits of the chunks holding values
+	private char[] keys = new char[4];
+	private Container[] containers = new Container[4];
+	private int chunkCount;
+
+	/**
+	 * Add all the values of a range.
+	 *
+	 * @param lowerBound	the lower bound of the range
+	 * @param upperBound	the upper bound of the range
+	 *
+	 * @throws IllegalArgumentException when the range is not a valid ZIP+4 range
+	 */
+	public void add(int lowerBound, int upperBound) {
+		if (lowerBound < MIN_ZIP_PLUS_4 || upperBound > MAX_ZIP_PLUS_4 || lowerBound > upperBound) {
+			throw new IllegalArgumentException("Invalid ZIP+4 range [" + lowerBound + ", " + upperBound + "].");
+		}
+		int firstKey = lowerBound >>> 16;
+		int lastKey = upperBound >>> 16;
+		for (int key = firstKey; key <= lastKey; key++) {
+			int low = key == firstKey ? lowerBound & 0xFFFF : 0;
+			int high = key == lastKey ? upperBound & 0xFFFF : Container.CHUNK_SIZE - 1;
+			int index = getOrCreateChunk(key);
+			containers[index] = containers[index].add(low, high);
+		}
+	}
+
+	@Override
+	public void accept(int lowerBound, int upperBound) {
+		add(lowerBound, upperBound);
+	}
+
+	/**
+	 * The index of the chunk of a key, the chunk is created when it does not exist.
+	 */
+	private int getOrCreateChunk(int key) {
+		//the ranges are often added in ascending order
+		if (chunkCount > 0 && keys[chunkCount - 1] == key) {
+			return chunkCount - 1;
+		}
+		int index = findChunk(key);
+		if (index >= 0) {
+			return index;
+		}
+
+		index = -index - 1;
+		if (chunkCount == keys.length) {
+			keys = Arrays.copyOf(keys, chunkCount * 2);
+			containers = Arrays.copyOf(containers, chunkCount * 2);
+		}
+		System.arraycopy(keys, index, keys, index + 1, chunkCount - index);
+		System.arraycopy(containers, index, containers, index + 1, chunkCount - index);
+		keys[index] = (char) key;
+		containers[index] = new RunContainer();
+		chunkCount++;
+		return index;
+	}
+
+	/**
+	 * @return the index of the chunk of a key, -(insertion point) - 1 when it does not exist
+	 */
+	private int findChunk(int key) {
+		return Arrays.binarySearch(keys, 0, chunkCount, (char) key);
+	}
+
+	/**
+	 * @param zipPlus4	the ZIP+4 code
+	 * @return true when the ZIP+4 code is in one of the ranges
+	 */
+	public boolean contains(int zipPlus4) {
+		if (zipPlus4 < MIN_ZIP_PLUS_4 || zipPlus4 > MAX_ZIP_PLUS_4) {
+			return false;
+		}
+		int index = findChunk(zipPlus4 >>> 16);
+		return index >= 0 && containers[index].contains(zipPlus4 & 0xFFFF);
+	}
+
+	/**
+	 * Replace every container by the smallest container for its values.
+	 */
+	public void optimize() {
+		for (int i = 0; i < chunkCount; i++) {
+			containers[i] = containers[i].optimize();
+		}
+	}
+
+	/**
+	 * Scan the merged ranges in ascending order.
+	 *
+	 * @param consumer	receives the lower and upper bound of every merged range
+	 */
+	public void forEachRange(ZipCodeRangeConsumer consumer) {
+		//the run in progress, a run ending a chunk may continue in the next chunk
+		int[] run = { -1, -1 };
+		for (int i = 0; i < chunkCount; i++) {
+			containers[i].forEachRun(keys[i] << 16, (lowerBound, upperBound) -> {
+				if (run[0] >= 0 && lowerBound == run[1] + 1) {
+					run[1] = upperBound;
+				} else {
+					if (run[0] >= 0) {
+						consumer.accept(run[0], run[1]);
+					}
+					run[0] = lowerBound;
+					run[1] = upperBound;
+				}
+			});
+		}
+		if (run[0] >= 0) {
+			consumer.accept(run[0], run[1]);
+		}
+	}
+
+	/**
+	 * @return the number of merged ranges
+	 */
+	public int getRangeCount() {
+		int[] rangeCount = { 0 };
+		forEachRange((lowerBound, upperBound) -> rangeCount[0]++);
+		return rangeCount[0];
+	}
+
+	/**
+	 * @return the number of ZIP+4 codes in the ranges
+	 */
+	public long getCardinality() {
+		long cardinality = 0;
+		for (int i = 0; i < chunkCount; i++) {
+			cardinality += containers[i].getCardinality();
+		}
+		return cardinality;
+	}
+
+	/**
+	 * @return the approximate size of the bitmap in memory, the keys and the values of the containers
+	 */
+	public long getSizeInBytes() {
+		long sizeInBytes = 2L * chunkCount;
+		for (int i = 0; i < chunkCount; i++) {
+			sizeInBytes += containers[i].getSizeInBytes();
+		}
+		return sizeInBytes;
+	}
+
+	public boolean isEmpty() {
+		return chunkCount == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		forEachRange((lowerBound, upperBound) -> {
+			if (sb.length() > 0) {
+				sb.append(' ');
+			}
+			sb.append('[').append(ZipPlus4RangeParser.formatZipPlus4(lowerBound)).append(',')
+					.append(ZipPlus4RangeParser.formatZipPlus4(upperBound)).append(']');
+		});
+		return sb.toString();
+	}
+}
@@ -0,0 +1,63 @@
+package com.hp.zipcode.zipplus4;
+
+import com.hp.zipcode.service.ZipCodeRangeParser;
+
+/**
+ * Single pass scanner for ZIP+4 ranges in the bracket format, e.g. [94133-0001,94133-0099] [941340000,941349999].
+ *
+ * A bound is a ZIP+4 code with or without its dash, or a 5 digits zip code standing for all its ZIP+4 codes:
+ * 94133 is 94133-0000 as a lower bound and 94133-9999 as an upper bound. The bounds are parsed into ints,
+ * 12345-6789 being 123456789. Everything else is parsed like the 5 digits zip code ranges.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipPlus4RangeParser extends ZipCodeRangeParser {
+	//the number of digits of the ZIP+4 add-on code
+	public static final int ADD_ON_DIGITS = 4;
+
+	//the number of ZIP+4 codes of a zip code
+	private static final int ADD_ON_COUNT = 10000;
+
+	@Override
+	protected int parseBound(CharSequence input, int start, int end, boolean upperBound) {
+		int length = end - start;
+		if (length == ZIPCODE_DIGITS) {
+			int zipCode = parseDigits(input, start, end);
+			return zipCode < 0 ? -1 : zipCode * ADD_ON_COUNT + (upperBound ? ADD_ON_COUNT - 1 : 0);
+		}
+		if (length == ZIPCODE_DIGITS + ADD_ON_DIGITS) {
+			return parseDigits(input, start, end);
+		}
+		if (length == ZIPCODE_DIGITS + 1 + ADD_ON_DIGITS && input.charAt(start + ZIPCODE_DIGITS) == '-') {
+			int zipCode = parseDigits(input, start, start + ZIPCODE_DIGITS);
+			int addOn = parseDigits(input, start + ZIPCODE_DIGITS + 1, end);
+			return zipCode < 0 || addOn < 0 ? -1 : zipCode * ADD_ON_COUNT + addOn;
+		}
+		return -1;
+	}
+
+	@Override
+	protected String formatBound(int bound) {
+		return formatZipPlus4(bound);
+	}
+
+	/**
+	 * Format a ZIP+4 code with its leading zeros and its dash, e.g. 5010001 is formatted as 00501-0001.
+	 *
+	 * @param zipPlus4	the ZIP+4 code
+	 * @return the formatted ZIP+4 code
+	 */
+	public static String formatZipPlus4(int zipPlus4) {
+		char[] digits = new char[ZIPCODE_DIGITS + 1 + ADD_ON_DIGITS];
+		for (int i = digits.length - 1; i >= 0; i--) {
+			if (i == ZIPCODE_DIGITS) {
+				digits[i] = '-';
+				continue;
+			}
+			digits[i] = (char) ('0' + zipPlus4 % 10);
+			zipPlus4 /= 10;
+		}
+		return new String(digits);
+	}
+}
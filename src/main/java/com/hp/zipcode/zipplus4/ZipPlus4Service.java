@@ -0,0 +1,61 @@
+package com.hp.zipcode.zipplus4;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.MessageFormat;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ * This service is used to merge overlapping ZIP+4 ranges and also validate the ranges.
+ *
+ * The ranges are added to a compressed bitmap as they are parsed, without sorting them, and the bitmap
+ * answers whether a ZIP+4 code is covered. It reports the same errors as the ZipCodeService.
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipPlus4Service {
+	//the scanner parsing the ZIP+4 ranges
+	private final ZipPlus4RangeParser zipPlus4RangeParser = new ZipPlus4RangeParser();
+
+	/**
+	 * This method will merge all the overlapping ZIP+4 ranges into a compressed bitmap.
+	 * It also validates the ZIP+4 ranges.
+	 *
+	 * @param zipPlus4Ranges	the string represents the ZIP+4 ranges
+	 * @return the bitmap of the merged ZIP+4 ranges
+	 *
+	 * @throws InvalidZipCodeRangeException when detects that the ZIP+4 ranges contains invalid ranges.
+	 */
+	public ZipPlus4Bitmap mergeZipPlus4Ranges(String zipPlus4Ranges) throws InvalidZipCodeRangeException {
+		if (zipPlus4Ranges == null || zipPlus4Ranges.length() == 0) {
+			throw new InvalidZipCodeRangeException(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR, zipPlus4Ranges));
+		}
+
+		ZipPlus4Bitmap zipPlus4Bitmap = new ZipPlus4Bitmap();
+		zipPlus4RangeParser.parse(zipPlus4Ranges, zipPlus4Bitmap);
+		zipPlus4Bitmap.optimize();
+		return zipPlus4Bitmap;
+	}
+
+	/**
+	 * This method will merge all the overlapping ZIP+4 ranges read from a stream into a compressed bitmap.
+	 * It also validates the ZIP+4 ranges.
+	 *
+	 * @param zipPlus4Ranges	the stream of the ZIP+4 ranges, it is not closed
+	 * @return the bitmap of the merged ZIP+4 ranges
+	 *
+	 * @throws InvalidZipCodeRangeException when detects that the ZIP+4 ranges contains invalid ranges.
+	 * @throws IOException when the stream cannot be read
+	 */
+	public ZipPlus4Bitmap mergeZipPlus4RangeStream(Reader zipPlus4Ranges) throws InvalidZipCodeRangeException, IOException {
+		ZipPlus4Bitmap zipPlus4Bitmap = new ZipPlus4Bitmap();
+		if (zipPlus4RangeParser.parse(zipPlus4Ranges, zipPlus4Bitmap) == 0) {
+			throw new InvalidZipCodeRangeException(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR, ""));
+		}
+		zipPlus4Bitmap.optimize();
+		return zipPlus4Bitmap;
+	}
+}
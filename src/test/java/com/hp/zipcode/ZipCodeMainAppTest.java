@@ -0,0 +1,49 @@
+package com.hp.zipcode;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.hp.zipcode.model.ZipCodeRangeSet;
+import com.hp.zipcode.snapshot.ZipCodeRangeSnapshot;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeMainAppTest {
+
+	/**
+	 * Test for zip code ranges typed on the console and printed in the binary format.
+	 * Expect the standard output to be a snapshot of the merged ranges, without the prompt.
+	 */
+	@Test
+	public void testConsoleInputInBinaryFormat() throws IOException, InterruptedException {
+		//the binary snapshot is written straight to the standard output, so the app runs in its own JVM
+		Process process = new ProcessBuilder(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+				"-cp", System.getProperty("java.class.path"), ZipCodeMainApp.class.getName(),
+				ZipCodeMainApp.FORMAT_OPTION, "binary")
+				.redirectError(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		try (OutputStream input = process.getOutputStream()) {
+			input.write("[00501,00600] [00550,00700] [94133,94133]\n".getBytes(StandardCharsets.US_ASCII));
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (InputStream standardOutput = process.getInputStream()) {
+			standardOutput.transferTo(output);
+		}
+		assertEquals(0, process.waitFor());
+
+		ZipCodeRangeSnapshot snapshot = ZipCodeRangeSnapshot.read(ByteBuffer.wrap(output.toByteArray()));
+		assertEquals(new ZipCodeRangeSet.Builder().add(501, 700).add(94133, 94133).build(), snapshot.toRangeSet());
+	}
+}
@@ -0,0 +1,64 @@
+package com.hp.zipcode.batch;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.text.MessageFormat;
+
+import org.junit.Test;
+
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeBatchProcessorTest {
+
+	/**
+	 * Test for a batch with valid and invalid lines.
+	 * Expect the merged ranges of every line in input order and the invalid lines reported as errors.
+	 */
+	@Test
+	public void testProcess() throws Exception {
+		String input = "[94133,94133] [94200,94299] [94226,94399]\n"
+				+ "[94133,94133] [9420A,94299]\n"
+				+ "\n"
+				+ "[00501, 00600] [00601,00700]\n";
+		StringWriter output = new StringWriter();
+		ZipCodeBatchReport zipCodeBatchReport = new ZipCodeBatchProcessor(new ZipCodeService(), 2)
+				.process(new BufferedReader(new StringReader(input)), output);
+
+		assertEquals("[94133,94133] [94200,94399]\n"
+				+ ZipCodeBatchProcessor.ERROR_PREFIX + MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR, "9420A") + "\n"
+				+ ZipCodeBatchProcessor.ERROR_PREFIX + MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR, "") + "\n"
+				+ "[00501,00700]\n", output.toString());
+		assertEquals(4, zipCodeBatchReport.getLineCount());
+		assertEquals(2, zipCodeBatchReport.getErrorCount());
+	}
+
+	/**
+	 * Test for a batch of many more chunks than the workers can hold.
+	 * Expect the output lines in input order.
+	 */
+	@Test
+	public void testProcessKeepsInputOrder() throws Exception {
+		StringBuilder input = new StringBuilder();
+		StringBuilder expectedOutput = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			int zipCode = 10000 + i;
+			input.append('[').append(zipCode).append(',').append(zipCode).append("] [").append(zipCode + 1).append(',').append(zipCode + 5).append("]\n");
+			expectedOutput.append('[').append(zipCode).append(',').append(zipCode + 5).append("]\n");
+		}
+		StringWriter output = new StringWriter();
+		ZipCodeBatchReport zipCodeBatchReport = new ZipCodeBatchProcessor(new ZipCodeService(), 4, 7)
+				.process(new BufferedReader(new StringReader(input.toString())), output);
+
+		assertEquals(expectedOutput.toString(), output.toString());
+		assertEquals(10000, zipCodeBatchReport.getLineCount());
+		assertEquals(0, zipCodeBatchReport.getErrorCount());
+	}
+}
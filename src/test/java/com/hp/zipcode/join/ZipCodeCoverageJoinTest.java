@@ -0,0 +1,98 @@
+package com.hp.zipcode.join;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeCoverageJoinTest {
+	private final ZipCodeRangeSet coverage = new ZipCodeRangeSet.Builder()
+			.add(0, 0).add(501, 600).add(94133, 94133).add(94200, 94399).add(99999, 99999).build();
+
+	private final ZipCodeCoverageJoin zipCodeCoverageJoin = new ZipCodeCoverageJoin(coverage);
+
+	/**
+	 * Test for the coverage mask of random zip codes, some of them out of the domain.
+	 * Expect the bit of every zip code to match the merged ranges, and the same mask from a direct buffer.
+	 */
+	@Test
+	public void testCoverageMask() {
+		Random random = new Random(42);
+		int[] zipCodes = new int[ZipCodeCoverageJoin.CHUNK_SIZE * 2 + 100];
+		for (int i = 0; i < zipCodes.length; i++) {
+			zipCodes[i] = random.nextInt(10) == 0 ? random.nextInt() : 94000 + random.nextInt(600);
+		}
+
+		long[] mask = zipCodeCoverageJoin.coverageMask(zipCodes);
+		for (int i = 0; i < zipCodes.length; i++) {
+			assertEquals(coverage.contains(zipCodes[i]), (mask[i >>> 6] & (1L << i)) != 0);
+		}
+
+		IntBuffer directZipCodes = ByteBuffer.allocateDirect(zipCodes.length * 4).asIntBuffer();
+		directZipCodes.put(zipCodes).flip();
+		assertArrayEquals(mask, zipCodeCoverageJoin.coverageMask(directZipCodes));
+	}
+
+	/**
+	 * Test for filtering zip codes with the result of mergeOverlappingZipCodeRanges.
+	 * Expect the covered zip codes in input order, without the ones out of the domain.
+	 */
+	@Test
+	public void testFilter() {
+		ZipCodeCoverageJoin join = ZipCodeCoverageJoin.of(Arrays.asList(new ZipCodeRange(94200, 94299), new ZipCodeRange(94226, 94399)));
+		int[] zipCodes = { 94300, -94300, 94199, 94200, 94300 + 131072, 94399, 94400 };
+
+		int[] coveredZipCodes = new int[zipCodes.length];
+		int n = join.filter(zipCodes, 0, zipCodes.length, coveredZipCodes);
+		assertArrayEquals(new int[] { 94300, 94200, 94399 }, Arrays.copyOf(coveredZipCodes, n));
+		assertEquals(3, join.count(zipCodes, 0, zipCodes.length));
+
+		IntBuffer output = IntBuffer.allocate(zipCodes.length);
+		assertEquals(3, join.filter(IntBuffer.wrap(zipCodes), output));
+		assertEquals(94399, output.get(2));
+	}
+
+	/**
+	 * Test for joining a file of address records starting with a zip code.
+	 * Expect the covered lines, and one bit per line in the mask, invalid lines not being covered.
+	 */
+	@Test
+	public void testJoinFile() throws IOException {
+		Path zipCodeFile = Files.createTempFile("zipcode", ".txt");
+		Path outputFile = Files.createTempFile("zipcode", ".out");
+		try {
+			Files.write(zipCodeFile, "94133,1 Main St\n94134\r\nABCDE\n00501-1234\n\n99999".getBytes(StandardCharsets.US_ASCII));
+
+			ZipCodeJoinReport report = zipCodeCoverageJoin.join(zipCodeFile, outputFile, ZipCodeCoverageJoin.Output.FILTER);
+			assertEquals(6, report.getLineCount());
+			assertEquals(3, report.getCoveredCount());
+			assertEquals("94133,1 Main St\n00501-1234\n99999\n", new String(Files.readAllBytes(outputFile), StandardCharsets.US_ASCII));
+
+			zipCodeCoverageJoin.join(zipCodeFile, outputFile, ZipCodeCoverageJoin.Output.MASK);
+			ByteBuffer mask = ByteBuffer.wrap(Files.readAllBytes(outputFile)).order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(8, mask.remaining());
+			assertEquals(0b101001L, mask.getLong());
+		} finally {
+			Files.delete(zipCodeFile);
+			Files.delete(outputFile);
+		}
+	}
+}
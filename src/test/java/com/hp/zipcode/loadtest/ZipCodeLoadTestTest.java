@@ -0,0 +1,34 @@
+package com.hp.zipcode.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeLoadTestTest {
+
+	/**
+	 * Test for a short load test of the service at a target rate.
+	 * Expect the requests of the target rate to be sent and the malformed ones to be counted as invalid.
+	 */
+	@Test
+	public void testLoadTest() throws InterruptedException {
+		LoadTestReport loadTestReport = new ZipCodeLoadTest.Builder().threads(2).targetRate(1000)
+				.duration(500, TimeUnit.MILLISECONDS).warmup(0, TimeUnit.MILLISECONDS)
+				.rangesPerRequest(10).malformedRate(1).build().run();
+
+		assertEquals(500, loadTestReport.getRequestCount());
+		assertEquals(500, loadTestReport.getInvalidCount());
+		assertEquals(0, loadTestReport.getFailedCount());
+		assertEquals(500, loadTestReport.getLatency().getCount());
+		assertTrue(loadTestReport.toJson().startsWith("{\"seed\":42,\"threads\":2,\"targetRate\":1000.0,\"requests\":500,"));
+		assertTrue(loadTestReport.toJson().contains("\"p999\":"));
+	}
+}
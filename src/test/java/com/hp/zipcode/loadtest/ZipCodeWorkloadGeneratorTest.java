@@ -0,0 +1,60 @@
+package com.hp.zipcode.loadtest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeWorkloadGeneratorTest {
+	private final ZipCodeService zipCodeService = new ZipCodeService();
+
+	/**
+	 * Test for two generators with the same parameters and seed.
+	 * Expect the same requests.
+	 */
+	@Test
+	public void testSameSeedSameRequests() {
+		String[] requests = new ZipCodeWorkloadGenerator(7L, 50, 100, 0.3, 0.1).nextRequests(100);
+
+		assertArrayEquals(requests, new ZipCodeWorkloadGenerator(7L, 50, 100, 0.3, 0.1).nextRequests(100));
+	}
+
+	/**
+	 * Test for requests without malformed ranges.
+	 * Expect every request to be merged, with the lower bounds in the zip codes of the states.
+	 */
+	@Test
+	public void testValidRequests() throws InvalidZipCodeRangeException {
+		ZipCodeWorkloadGenerator zipCodeWorkloadGenerator = new ZipCodeWorkloadGenerator(42L, 100, 100, 0.5, 0);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(zipCodeService.mergeZipCodeRanges(zipCodeWorkloadGenerator.nextRequest()).getLowerBound(0) >= 500);
+		}
+	}
+
+	/**
+	 * Test for requests that all hold a malformed range.
+	 * Expect every request to be rejected with InvalidZipCodeRangeException.
+	 */
+	@Test
+	public void testMalformedRequests() {
+		ZipCodeWorkloadGenerator zipCodeWorkloadGenerator = new ZipCodeWorkloadGenerator(42L, 3, 100, 0.2, 1);
+		for (int i = 0; i < 1000; i++) {
+			String request = zipCodeWorkloadGenerator.nextRequest();
+			try {
+				zipCodeService.mergeZipCodeRanges(request);
+				fail(request);
+			} catch (InvalidZipCodeRangeException e) {
+				//expected
+			}
+		}
+	}
+}
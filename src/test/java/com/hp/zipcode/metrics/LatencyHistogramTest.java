@@ -0,0 +1,68 @@
+package com.hp.zipcode.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * Test for the percentiles of the latencies 1 to 10000.
+	 * Expect every percentile within 1/16 of the exact value.
+	 */
+	@Test
+	public void testValueAtPercentile() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			latencyHistogram.record(i);
+		}
+
+		assertEquals(10000, latencyHistogram.getCount());
+		assertEquals(10000, latencyHistogram.getMax());
+		assertEquals(5000.5, latencyHistogram.getMean(), 0.001);
+		assertWithinPrecision(5000, latencyHistogram.getValueAtPercentile(50));
+		assertWithinPrecision(9900, latencyHistogram.getValueAtPercentile(99));
+		assertWithinPrecision(9990, latencyHistogram.getValueAtPercentile(99.9));
+		assertEquals(10000, latencyHistogram.getValueAtPercentile(100));
+	}
+
+	/**
+	 * Test for the bucket of every power of two.
+	 * Expect the value to be at most the highest value of its bucket, and within 1/16 of it.
+	 */
+	@Test
+	public void testBucketIndex() {
+		for (int bit = 0; bit < 63; bit++) {
+			long value = 1L << bit;
+			long highestValue = LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(value));
+			assertTrue(value <= highestValue);
+			assertTrue(highestValue - value <= value / 16);
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+	}
+
+	/**
+	 * Test for reading and resetting a histogram without latencies.
+	 * Expect 0 for all the values.
+	 */
+	@Test
+	public void testReset() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+		latencyHistogram.record(12345);
+		latencyHistogram.reset();
+
+		assertEquals(0, latencyHistogram.getCount());
+		assertEquals(0, latencyHistogram.getMax());
+		assertEquals(0, latencyHistogram.getValueAtPercentile(99));
+	}
+
+	private static void assertWithinPrecision(long expected, long actual) {
+		assertTrue(actual + " is not within 1/16 of " + expected, Math.abs(actual - expected) <= expected / 16);
+	}
+}
@@ -0,0 +1,97 @@
+package com.hp.zipcode.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeServiceMetricsTest {
+
+	/**
+	 * Test for merges while the metrics are disabled.
+	 * Expect nothing to be recorded.
+	 */
+	@Test
+	public void testDisabledByDefault() throws InvalidZipCodeRangeException {
+		ZipCodeService zipCodeService = new ZipCodeService();
+		zipCodeService.mergeZipCodeRanges("[94133,94133] [94200,94299]");
+
+		assertEquals(0, zipCodeService.getMetrics().getMergeCount());
+		assertEquals(0, zipCodeService.getMetrics().getTotalLatency().getCount());
+	}
+
+	/**
+	 * Test for merges and invalid ranges while the metrics are enabled.
+	 * Expect the merges, the ranges, the errors by kind, the merge strategies and the latencies to be recorded.
+	 */
+	@Test
+	public void testRecordMergesAndErrors() throws InvalidZipCodeRangeException {
+		ZipCodeService zipCodeService = new ZipCodeService();
+		ZipCodeServiceMetrics metrics = zipCodeService.getMetrics();
+		metrics.setEnabled(true);
+
+		zipCodeService.mergeZipCodeRanges("[94133,94133] [94200,94299] [94226,94399]");
+		mergeInvalidZipCodeRanges(zipCodeService, "[94133,94133] [9420A,94299]");
+		mergeInvalidZipCodeRanges(zipCodeService, "[94299,94200]");
+
+		assertEquals(3, metrics.getMergeCount());
+		assertEquals(3, metrics.getInputRangeCount());
+		assertEquals(2, metrics.getOutputRangeCount());
+		assertEquals(1, metrics.getValidationErrorCount());
+		assertEquals(1, metrics.getOutOfBoundErrorCount());
+		assertEquals(0, metrics.getExtractErrorCount());
+		assertEquals(1, metrics.getParseLatency().getCount());
+		assertEquals(1, metrics.getMergeLatency().getCount());
+		assertEquals(3, metrics.getTotalLatency().getCount());
+		assertEquals(Long.valueOf(1), metrics.getMergeStrategyCounts().get("PRESORTED_SCAN"));
+
+		metrics.reset();
+		assertEquals(0, metrics.getMergeCount());
+		assertTrue(metrics.getMergeStrategyCounts().isEmpty());
+	}
+
+	/**
+	 * Test for the metrics registered to the platform MBean server.
+	 * Expect the counters and the latencies to be readable and the metrics to be enabled by JMX.
+	 */
+	@Test
+	public void testRegister() throws Exception {
+		ZipCodeService zipCodeService = new ZipCodeService();
+		ObjectName objectName = zipCodeService.getMetrics().register("test");
+		try {
+			MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			mBeanServer.setAttribute(objectName, new Attribute("Enabled", true));
+			zipCodeService.mergeZipCodeRanges("[94133,94133]");
+
+			assertTrue(zipCodeService.getMetrics().isEnabled());
+			assertEquals(1L, mBeanServer.getAttribute(objectName, "MergeCount"));
+			CompositeData totalLatency = (CompositeData) mBeanServer.getAttribute(objectName, "TotalLatency");
+			assertEquals(1L, totalLatency.get("count"));
+		} finally {
+			zipCodeService.getMetrics().unregister("test");
+		}
+	}
+
+	private static void mergeInvalidZipCodeRanges(ZipCodeService zipCodeService, String zipCodeRanges) {
+		try {
+			zipCodeService.mergeZipCodeRanges(zipCodeRanges);
+		} catch (InvalidZipCodeRangeException e) {
+			//expected
+		}
+	}
+}
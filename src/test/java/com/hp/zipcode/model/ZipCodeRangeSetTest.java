@@ -0,0 +1,132 @@
+package com.hp.zipcode.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeSetTest {
+
+	/**
+	 * Test for the builder with overlapping and adjacent ranges in ascending order.
+	 * Expect the ranges to be merged as they are added.
+	 */
+	@Test
+	public void testBuilderMergesOverlappingAndAdjacentRanges() {
+		ZipCodeRangeSet zipCodeRangeSet = new ZipCodeRangeSet.Builder()
+				.add(10000, 10001).add(10002, 10003).add(10003, 10010).add(10020, 10030).build();
+
+		assertEquals(2, zipCodeRangeSet.size());
+		assertArrayEquals(new int[] { 10000, 10010, 10020, 10030 }, zipCodeRangeSet.toBoundsArray());
+	}
+
+	/**
+	 * Test for the builder with a range that is not in ascending order.
+	 * Expect IllegalArgumentException to be thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBuilderWithUnsortedRanges() {
+		new ZipCodeRangeSet.Builder().add(10020, 10030).add(10000, 10001);
+	}
+
+	/**
+	 * Test for packed ranges that are not merged.
+	 * Expect IllegalArgumentException to be thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testOfMergedWithAdjacentRanges() {
+		long[] ranges = { ZipCodeRangeSet.pack(10000, 10001), ZipCodeRangeSet.pack(10002, 10003) };
+		ZipCodeRangeSet.ofMerged(ranges, ranges.length);
+	}
+
+	/**
+	 * Test for changing the list exported from a set.
+	 * Expect the set to stay unchanged.
+	 */
+	@Test
+	public void testToListIsACopy() {
+		ZipCodeRangeSet zipCodeRangeSet = new ZipCodeRangeSet.Builder().add(94133, 94133).add(94200, 94299).build();
+
+		List<ZipCodeRange> zipCodeRangeList = zipCodeRangeSet.toList();
+		zipCodeRangeList.get(0).setUpperBound(94299);
+
+		assertEquals(94133, zipCodeRangeSet.getUpperBound(0));
+		assertEquals("[94133, 94133] [94200, 94299]", zipCodeRangeSet.toString());
+		assertTrue(zipCodeRangeSet.equals(new ZipCodeRangeSet.Builder().add(94133, 94133).add(94200, 94299).build()));
+	}
+
+	/**
+	 * Test for the intersection of two service areas.
+	 * Expect only the zip codes in both sets, ranges touching each other have no zip code in common.
+	 */
+	@Test
+	public void testIntersection() {
+		ZipCodeRangeSet serviceArea = new ZipCodeRangeSet.Builder().add(94100, 94199).add(94300, 94399).add(94500, 94599).build();
+		ZipCodeRangeSet otherServiceArea = new ZipCodeRangeSet.Builder().add(94150, 94349).add(94600, 94699).build();
+
+		assertEquals("[94150, 94199] [94300, 94349]", serviceArea.intersection(otherServiceArea).toString());
+		assertTrue(serviceArea.intersection(ZipCodeRangeSet.EMPTY).isEmpty());
+	}
+
+	/**
+	 * Test for the coverage minus embargoed zip codes.
+	 * Expect the ranges to be trimmed and split around the embargoed zip codes.
+	 */
+	@Test
+	public void testDifference() {
+		ZipCodeRangeSet coverage = new ZipCodeRangeSet.Builder().add(94100, 94199).add(94300, 94399).build();
+		ZipCodeRangeSet embargoed = new ZipCodeRangeSet.Builder().add(94000, 94100).add(94150, 94150).add(94390, 94500).build();
+
+		assertEquals("[94101, 94149] [94151, 94199] [94300, 94389]", coverage.difference(embargoed).toString());
+		assertTrue(coverage.difference(coverage).isEmpty());
+	}
+
+	/**
+	 * Test for the symmetric difference of adjacent and overlapping ranges.
+	 * Expect the parts covered by only one set, merged when they touch each other.
+	 */
+	@Test
+	public void testSymmetricDifference() {
+		ZipCodeRangeSet zipCodeRangeSet = new ZipCodeRangeSet.Builder().add(10000, 10009).add(10020, 10029).build();
+		ZipCodeRangeSet other = new ZipCodeRangeSet.Builder().add(10010, 10024).build();
+
+		assertEquals("[10000, 10019] [10025, 10029]", zipCodeRangeSet.symmetricDifference(other).toString());
+	}
+
+	/**
+	 * Test for the complement within the zip code domain.
+	 * Expect the zip codes from 00000 to 99999 that are not in the set.
+	 */
+	@Test
+	public void testComplement() {
+		ZipCodeRangeSet zipCodeRangeSet = new ZipCodeRangeSet.Builder().add(0, 500).add(94133, 94133).build();
+
+		assertEquals("[501, 94132] [94134, 99999]", zipCodeRangeSet.complement().toString());
+		assertEquals(zipCodeRangeSet, zipCodeRangeSet.complement().complement());
+		assertEquals("[0, 99999]", ZipCodeRangeSet.EMPTY.complement().toString());
+	}
+
+	/**
+	 * Test for the union of several sets.
+	 * Expect the overlapping and adjacent ranges of the sets to be merged.
+	 */
+	@Test
+	public void testUnionAll() {
+		ZipCodeRangeSet zipCodeRangeSet = ZipCodeRangeSet.unionAll(Arrays.asList(
+				new ZipCodeRangeSet.Builder().add(94133, 94133).add(94600, 94699).build(),
+				new ZipCodeRangeSet.Builder().add(94200, 94299).build(),
+				ZipCodeRangeSet.EMPTY,
+				new ZipCodeRangeSet.Builder().add(94134, 94140).add(94226, 94399).build()));
+
+		assertEquals("[94133, 94140] [94200, 94399] [94600, 94699]", zipCodeRangeSet.toString());
+	}
+}
@@ -0,0 +1,135 @@
+package com.hp.zipcode.output;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.hp.zipcode.model.ZipCodeRangeSet;
+import com.hp.zipcode.snapshot.ZipCodeRangeSnapshot;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeWriterTest {
+	@Rule
+	public ExpectedException expectedEx = ExpectedException.none();
+
+	private final ZipCodeRangeSet zipCodeRangeSet = new ZipCodeRangeSet.Builder()
+			.add(0, 0).add(501, 600).add(94133, 94133).add(99999, 99999).build();
+
+	/**
+	 * Test for writing ranges in the bracket format.
+	 * Expect the format printed to the console by ZipCodeRange.toString().
+	 */
+	@Test
+	public void testWriteBracket() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipCodeRangeWriter writer = new ZipCodeRangeWriter(outputStream, ZipCodeRangeWriter.Format.BRACKET)) {
+			writer.write(zipCodeRangeSet);
+		}
+
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < zipCodeRangeSet.size(); i++) {
+			expected.append(zipCodeRangeSet.get(i));
+		}
+		assertEquals(expected.toString(), new String(outputStream.toByteArray(), StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Test for writing ranges in the CSV format.
+	 * Expect one range per line with the bounds padded to 5 digits.
+	 */
+	@Test
+	public void testWriteCsv() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipCodeRangeWriter writer = new ZipCodeRangeWriter(outputStream, ZipCodeRangeWriter.Format.CSV)) {
+			writer.write(zipCodeRangeSet);
+		}
+
+		assertEquals("00000,00000\n00501,00600\n94133,94133\n99999,99999\n",
+				new String(outputStream.toByteArray(), StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Test for writing more ranges to a file than the buffer holds.
+	 * Expect every range to be written once the writer is closed.
+	 */
+	@Test
+	public void testWriteFileLargerThanBuffer() throws IOException {
+		ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder();
+		for (int zipCode = 0; zipCode <= 99999; zipCode += 2) {
+			builder.add(zipCode, zipCode);
+		}
+		ZipCodeRangeSet largeSet = builder.build();
+
+		Path file = Files.createTempFile("zipcode", ".csv");
+		try {
+			try (ZipCodeRangeWriter writer = ZipCodeRangeWriter.toFile(file, ZipCodeRangeWriter.Format.CSV)) {
+				writer.write(largeSet);
+			}
+
+			assertEquals(50000, Files.readAllLines(file, StandardCharsets.US_ASCII).size());
+			assertEquals(50000 * 12, Files.size(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Test for writing ranges in the binary format.
+	 * Expect a snapshot holding the same ranges.
+	 */
+	@Test
+	public void testWriteBinary() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipCodeRangeWriter writer = new ZipCodeRangeWriter(outputStream, ZipCodeRangeWriter.Format.BINARY)) {
+			writer.write(zipCodeRangeSet);
+		}
+
+		ZipCodeRangeSnapshot snapshot = ZipCodeRangeSnapshot.read(ByteBuffer.wrap(outputStream.toByteArray()));
+		assertEquals(zipCodeRangeSet, snapshot.toRangeSet());
+	}
+
+	/**
+	 * Test for writing single ranges in the binary format.
+	 * Expect a single snapshot of the merged ranges to be written on close.
+	 */
+	@Test
+	public void testWriteSingleRangesInBinary() throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try (ZipCodeRangeWriter writer = new ZipCodeRangeWriter(outputStream, ZipCodeRangeWriter.Format.BINARY)) {
+			writer.write(501, 600);
+			writer.write(550, 700);
+			writer.write(94133, 94133);
+			writer.flush();
+			assertEquals(0, outputStream.size());
+		}
+
+		ZipCodeRangeSnapshot snapshot = ZipCodeRangeSnapshot.read(ByteBuffer.wrap(outputStream.toByteArray()));
+		assertEquals(new ZipCodeRangeSet.Builder().add(501, 700).add(94133, 94133).build(), snapshot.toRangeSet());
+	}
+
+	/**
+	 * Test for writing single ranges out of order in the binary format.
+	 * Expect IllegalArgumentException to be thrown.
+	 */
+	@Test
+	public void testWriteUnsortedRangesInBinary() throws IOException {
+		expectedEx.expect(IllegalArgumentException.class);
+		try (ZipCodeRangeWriter writer = new ZipCodeRangeWriter(new ByteArrayOutputStream(), ZipCodeRangeWriter.Format.BINARY)) {
+			writer.write(94133, 94133);
+			writer.write(501, 600);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package com.hp.zipcode.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeHttpServerTest {
+	//small enough to exceed it with a body that fits in the socket buffers
+	private static final int MAX_BODY_SIZE = 1024;
+
+	private ZipCodeHttpServer zipCodeHttpServer;
+
+	@Before
+	public void startServer() throws IOException {
+		zipCodeHttpServer = new ZipCodeHttpServer(new InetSocketAddress("127.0.0.1", 0), new ZipCodeService(), MAX_BODY_SIZE);
+		zipCodeHttpServer.start();
+	}
+
+	@After
+	public void stopServer() {
+		zipCodeHttpServer.stop(0);
+	}
+
+	/**
+	 * Test for merging zip code ranges.
+	 * Expect 200 OK with the merged ranges.
+	 */
+	@Test
+	public void testMerge() throws IOException {
+		HttpURLConnection connection = post(ZipCodeHttpServer.MERGE_PATH, "[94133,94133] [94200,94299] [94226,94399]", false);
+
+		assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+		assertEquals("[94133,94133] [94200,94399]", readBody(connection));
+	}
+
+	/**
+	 * Test for merging invalid zip code ranges.
+	 * Expect 400 Bad Request with the error message.
+	 */
+	@Test
+	public void testMergeInvalidRange() throws IOException {
+		HttpURLConnection connection = post(ZipCodeHttpServer.MERGE_PATH, "[94299,94200]", false);
+
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, connection.getResponseCode());
+		assertEquals("Lower bound zip code 94299 cannot be greater than upper bound zip code 94200.", readBody(connection));
+	}
+
+	/**
+	 * Test for a body larger than the maximum body size, with and without a Content-Length.
+	 * Expect 413 Request Entity Too Large.
+	 */
+	@Test
+	public void testMergeBodyTooLarge() throws IOException {
+		char[] spaces = new char[MAX_BODY_SIZE * 2];
+		Arrays.fill(spaces, ' ');
+		String body = "[94133,94133]" + new String(spaces);
+
+		assertEquals(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, post(ZipCodeHttpServer.MERGE_PATH, body, false).getResponseCode());
+		assertEquals(HttpURLConnection.HTTP_ENTITY_TOO_LARGE, post(ZipCodeHttpServer.MERGE_PATH, body, true).getResponseCode());
+	}
+
+	/**
+	 * Test for a merge that is not a POST.
+	 * Expect 405 Method Not Allowed.
+	 */
+	@Test
+	public void testMergeWithGet() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) uri(ZipCodeHttpServer.MERGE_PATH).toURL().openConnection();
+
+		assertEquals(HttpURLConnection.HTTP_BAD_METHOD, connection.getResponseCode());
+	}
+
+	/**
+	 * Test for looking up zip codes in zip code ranges.
+	 * Expect one line per zip code telling whether it is covered, and 400 for a zip code that is not 5 digits.
+	 */
+	@Test
+	public void testContains() throws IOException {
+		String path = ZipCodeHttpServer.CONTAINS_PATH + "?zip=94133&zip=94300&zip=00501";
+		HttpURLConnection connection = post(path, "[94133,94133] [94200,94299] [94226,94399]", false);
+
+		assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+		assertEquals("94133=true\n94300=true\n00501=false\n", readBody(connection));
+
+		connection = post(ZipCodeHttpServer.CONTAINS_PATH + "?zip=9413A", "[94133,94133]", false);
+		assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, connection.getResponseCode());
+		assertEquals("The provided zip code 9413A is not a valid zip code.", readBody(connection));
+	}
+
+	private HttpURLConnection post(String path, String body, boolean chunked) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		HttpURLConnection connection = (HttpURLConnection) uri(path).toURL().openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		if (chunked) {
+			connection.setChunkedStreamingMode(256);
+		} else {
+			connection.setFixedLengthStreamingMode(bytes.length);
+		}
+		try (OutputStream requestBody = connection.getOutputStream()) {
+			requestBody.write(bytes);
+		}
+		return connection;
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://127.0.0.1:" + zipCodeHttpServer.getAddress().getPort() + path);
+	}
+
+	private static String readBody(HttpURLConnection connection) throws IOException {
+		try (InputStream body = connection.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST
+				? connection.getInputStream() : connection.getErrorStream()) {
+			return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
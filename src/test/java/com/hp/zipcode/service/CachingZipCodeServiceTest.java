@@ -0,0 +1,74 @@
+package com.hp.zipcode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.hp.zipcode.model.ZipCodeRange;
+
+/**
+ * 
+ * @author Huy Pham
+ *
+ */
+public class CachingZipCodeServiceTest {
+
+	/**
+	 * Test for merging the same zip code ranges twice. 
+	 * Expect the second merge to be a cache hit returning the same set.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testRepeatedMergeHitsTheCache() throws Exception {
+		CachingZipCodeService zipcodeService = new CachingZipCodeService(1000);
+		String zipcodeRanges = "[94133,94133] [94200,94299] [94226,94399]";
+
+		assertSame(zipcodeService.mergeZipCodeRanges(zipcodeRanges), zipcodeService.mergeZipCodeRanges(new String(zipcodeRanges)));
+		assertEquals(1, zipcodeService.getHitCount());
+		assertEquals(1, zipcodeService.getMissCount());
+	}
+
+	/**
+	 * Test for changing a merged list returned from the cache. 
+	 * Expect the cached entry to stay unchanged.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testCachedEntryCannotBeCorrupted() throws Exception {
+		CachingZipCodeService zipcodeService = new CachingZipCodeService(1000);
+		String zipcodeRanges = "[94133,94133] [94200,94299]";
+
+		List<ZipCodeRange> zipCodeRangeList = zipcodeService.mergeOverlappingZipCodeRanges(zipcodeRanges);
+		zipCodeRangeList.get(0).setUpperBound(94299);
+
+		assertEquals(94133, zipcodeService.mergeOverlappingZipCodeRanges(zipcodeRanges).get(0).getUpperBound());
+	}
+
+	/**
+	 * Test for caching more zip code ranges than the maximum weight. 
+	 * Expect the least recently used entries to be evicted.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+		//each entry weights 13 chars + 4 for its range
+		CachingZipCodeService zipcodeService = new CachingZipCodeService(40);
+		zipcodeService.mergeZipCodeRanges("[10000,10001]");
+		zipcodeService.mergeZipCodeRanges("[20000,20001]");
+		zipcodeService.mergeZipCodeRanges("[10000,10001]");
+		zipcodeService.mergeZipCodeRanges("[30000,30001]");
+
+		assertEquals(2, zipcodeService.getCachedEntryCount());
+		assertEquals(1, zipcodeService.getEvictionCount());
+		assertEquals(34, zipcodeService.getCachedWeight());
+
+		zipcodeService.mergeZipCodeRanges("[10000,10001]");
+		assertEquals(2, zipcodeService.getHitCount());
+	}
+}
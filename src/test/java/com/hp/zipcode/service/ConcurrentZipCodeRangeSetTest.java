@@ -0,0 +1,115 @@
+package com.hp.zipcode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ConcurrentZipCodeRangeSetTest {
+
+	/**
+	 * Test for adding and removing ranges from a single thread.
+	 * Expect every update to be visible as soon as it returns.
+	 */
+	@Test
+	public void testAddAndRemove() throws InvalidZipCodeRangeException {
+		ConcurrentZipCodeRangeSet zipCodeRangeSet = new ConcurrentZipCodeRangeSet(
+				new ZipCodeRangeSet.Builder().add(94133, 94133).build());
+
+		zipCodeRangeSet.add(94200, 94299);
+		zipCodeRangeSet.add(94226, 94399);
+		assertEquals("[94133, 94133] [94200, 94399]", zipCodeRangeSet.snapshot().toString());
+		assertTrue(zipCodeRangeSet.contains(94300));
+
+		zipCodeRangeSet.remove(94250, 94259);
+		assertEquals("[94133, 94133] [94200, 94249] [94260, 94399]", zipCodeRangeSet.snapshot().toString());
+		assertFalse(zipCodeRangeSet.contains(94255));
+		assertEquals(3, zipCodeRangeSet.getVersion());
+	}
+
+	/**
+	 * Test for an invalid range.
+	 * Expect InvalidZipCodeRangeException to be thrown and the snapshot to stay unchanged.
+	 */
+	@Test
+	public void testAddInvalidRange() {
+		ConcurrentZipCodeRangeSet zipCodeRangeSet = new ConcurrentZipCodeRangeSet();
+		try {
+			zipCodeRangeSet.add(94299, 94200);
+			fail();
+		} catch (InvalidZipCodeRangeException e) {
+			assertTrue(zipCodeRangeSet.snapshot().isEmpty());
+			assertEquals(0, zipCodeRangeSet.getVersion());
+		}
+	}
+
+	/**
+	 * Test for writers adding ranges while readers query the set.
+	 * Expect the readers to only see growing snapshots and every range to be added in the end.
+	 */
+	@Test
+	public void testConcurrentWritersAndReaders() throws Exception {
+		final int writers = 4;
+		final int rangesPerWriter = 2000;
+		final ConcurrentZipCodeRangeSet zipCodeRangeSet = new ConcurrentZipCodeRangeSet();
+		final AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executorService = Executors.newFixedThreadPool(writers + 2);
+		try {
+			List<Future<?>> readers = new ArrayList<Future<?>>();
+			for (int r = 0; r < 2; r++) {
+				readers.add(executorService.submit(() -> {
+					int previousSize = 0;
+					while (writing.get()) {
+						ZipCodeRangeSet snapshot = zipCodeRangeSet.snapshot();
+						assertTrue(snapshot.size() >= previousSize);
+						previousSize = snapshot.size();
+					}
+					return null;
+				}));
+			}
+
+			//every writer adds the ranges [10 * i, 10 * i + 4] with i modulo writers equal to its number
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int w = 0; w < writers; w++) {
+				final int writer = w;
+				futures.add(executorService.submit(() -> {
+					for (int i = writer; i < writers * rangesPerWriter; i += writers) {
+						zipCodeRangeSet.add(10 * i, 10 * i + 4);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+			writing.set(false);
+			for (Future<?> reader : readers) {
+				reader.get();
+			}
+		} finally {
+			executorService.shutdown();
+		}
+
+		assertEquals(writers * rangesPerWriter, zipCodeRangeSet.size());
+		assertTrue(zipCodeRangeSet.getVersion() <= writers * rangesPerWriter);
+		assertTrue(zipCodeRangeSet.contains(10 * 1234 + 4));
+		assertFalse(zipCodeRangeSet.contains(10 * 1234 + 5));
+	}
+}
@@ -0,0 +1,96 @@
+package com.hp.zipcode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.MessageFormat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+
+/**
+ * 
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeIndexTest {
+	@Rule
+	public ExpectedException expectedEx = ExpectedException.none();
+
+	private ZipCodeRangeIndex zipCodeRangeIndex = new ZipCodeRangeIndex();
+
+	/**
+	 * Test for adding overlapping and adjacent ranges in no order. 
+	 * Expect the same zip code ranges as the ZipCodeService merge.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testAddMergesLikeTheZipCodeService() throws Exception {
+		zipCodeRangeIndex.add(95786, 95796);
+		zipCodeRangeIndex.add(95746, 95766);
+		zipCodeRangeIndex.add(95756, 95776);
+		zipCodeRangeIndex.add(95777, 95780);
+		zipCodeRangeIndex.add(94133, 94133);
+
+		String zipcodeRanges = "[95786, 95796] [95746, 95766] [95756, 95776] [95777, 95780] [94133, 94133]";
+		assertEquals(new ZipCodeService().mergeZipCodeRanges(zipcodeRanges), zipCodeRangeIndex.toRangeSet());
+		assertEquals(3, zipCodeRangeIndex.size());
+	}
+
+	/**
+	 * Test for adding a range that bridges several ranges. 
+	 * Expect a single range to be left.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testAddBridgingRange() throws Exception {
+		zipCodeRangeIndex.add(10000, 10010);
+		zipCodeRangeIndex.add(10020, 10030);
+		zipCodeRangeIndex.add(10040, 10050);
+		zipCodeRangeIndex.add(10011, 10039);
+
+		assertEquals("[10000, 10050]", zipCodeRangeIndex.toRangeSet().toString());
+	}
+
+	/**
+	 * Test for removing ranges inside, across and around the merged ranges. 
+	 * Expect the merged ranges to be split and trimmed.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testRemoveSplitsAndTrimsRanges() throws Exception {
+		zipCodeRangeIndex.add(10000, 10050);
+		zipCodeRangeIndex.add(10100, 10150);
+		zipCodeRangeIndex.add(10200, 10250);
+
+		zipCodeRangeIndex.remove(10010, 10019);
+		zipCodeRangeIndex.remove(10140, 10210);
+
+		assertEquals("[10000, 10009] [10020, 10050] [10100, 10139] [10211, 10250]", zipCodeRangeIndex.toRangeSet().toString());
+		assertTrue(zipCodeRangeIndex.contains(10009));
+		assertFalse(zipCodeRangeIndex.contains(10010));
+		assertFalse(zipCodeRangeIndex.contains(10200));
+	}
+
+	/**
+	 * Test for adding a range with lower bound greater than upper bound. 
+	 * Expect InvalidZipCodeRangeException to be thrown with an
+	 * ZIPCODE_RANGE_OUT_OF_BOUND_ERROR error message.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testAddOutOfBoundRange() throws Exception {
+		expectedEx.expect(InvalidZipCodeRangeException.class);
+		expectedEx.expectMessage(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_OUT_OF_BOUND_ERROR, "00600", "00501"));
+
+		zipCodeRangeIndex.add(600, 501);
+	}
+}
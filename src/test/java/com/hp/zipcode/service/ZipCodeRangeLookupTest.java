@@ -0,0 +1,65 @@
+package com.hp.zipcode.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * 
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeLookupTest {
+
+	private ZipCodeService zipcodeService = new ZipCodeService();
+
+	/**
+	 * Test for point queries over overlapping zip code ranges. 
+	 * Expect the covered zip codes and the input ranges covering them to be found.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testContainsAndCoveringRanges() throws Exception {
+		ZipCodeRangeLookup zipCodeRangeLookup = zipcodeService
+				.buildZipCodeRangeLookup("[94200,94299] [94133,94133] [94226,94399] [94250,94260]");
+
+		assertEquals("[94133, 94133] [94200, 94399]", zipCodeRangeLookup.getMergedRanges().toString());
+		assertTrue(zipCodeRangeLookup.contains(94133));
+		assertFalse(zipCodeRangeLookup.contains(94134));
+		assertFalse(zipCodeRangeLookup.contains(-1));
+
+		int[] inputIndexes = new int[4];
+		assertEquals(3, zipCodeRangeLookup.getCoveringRanges(94255, inputIndexes));
+		int[] coveringIndexes = Arrays.copyOf(inputIndexes, 3);
+		Arrays.sort(coveringIndexes);
+		assertArrayEquals(new int[] { 0, 2, 3 }, coveringIndexes);
+		assertEquals(1, zipCodeRangeLookup.countCoveringRanges(94300));
+		assertEquals(0, zipCodeRangeLookup.countCoveringRanges(94400));
+	}
+
+	/**
+	 * Test for the batch point queries. 
+	 * Expect one answer per zip code.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testBatchQueries() throws Exception {
+		ZipCodeRangeLookup zipCodeRangeLookup = zipcodeService.buildZipCodeRangeLookup("[94200,94299] [94226,94399]");
+		int[] zipCodes = { 94199, 94200, 94250, 94399, 94400 };
+
+		boolean[] covered = new boolean[zipCodes.length];
+		assertEquals(3, zipCodeRangeLookup.contains(zipCodes, covered));
+		assertArrayEquals(new boolean[] { false, true, true, true, false }, covered);
+
+		int[] counts = new int[zipCodes.length];
+		zipCodeRangeLookup.countCoveringRanges(zipCodes, counts);
+		assertArrayEquals(new int[] { 0, 1, 2, 1, 0 }, counts);
+	}
+}
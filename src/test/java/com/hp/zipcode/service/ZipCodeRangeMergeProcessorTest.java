@@ -0,0 +1,151 @@
+package com.hp.zipcode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeMergeProcessorTest {
+
+	/**
+	 * Test for a sorted input that is still open.
+	 * Expect the closed ranges to be published before the input completes.
+	 */
+	@Test
+	public void testSortedInputPublishesClosedRangesEarly() throws Exception {
+		ZipCodeRangeMergeProcessor processor = new ZipCodeRangeMergeProcessor(true);
+		BlockingQueue<ZipCodeRange> merged = new LinkedBlockingQueue<>();
+		CompletableFuture<Void> completion = processor.consume(merged::add);
+
+		try (SubmissionPublisher<ZipCodeRange> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(processor);
+			upstream.submit(new ZipCodeRange(94133, 94133));
+			upstream.submit(new ZipCodeRange(94134, 94199));
+			upstream.submit(new ZipCodeRange(94200, 94299));
+			upstream.submit(new ZipCodeRange(94226, 94399));
+			upstream.submit(new ZipCodeRange(94600, 94699));
+
+			assertEquals("[94133, 94399]", merged.poll(10, TimeUnit.SECONDS).toString());
+			assertNull(merged.poll(100, TimeUnit.MILLISECONDS));
+		}
+
+		completion.get(10, TimeUnit.SECONDS);
+		assertEquals("[94600, 94699]", merged.poll().toString());
+		assertTrue(merged.isEmpty());
+	}
+
+	/**
+	 * Test for an unsorted input larger than the spill threshold.
+	 * Expect the same merged ranges as the service.
+	 */
+	@Test
+	public void testUnsortedInputSpilledToBitmap() throws Exception {
+		Random random = new Random(42);
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+		ZipCodeRangeMergeProcessor processor = new ZipCodeRangeMergeProcessor(false);
+		List<ZipCodeRange> merged = new ArrayList<>();
+		CompletableFuture<Void> completion = processor.consume(merged::add);
+
+		try (SubmissionPublisher<ZipCodeRange> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(processor);
+			for (int i = 0; i < ZipCodeRangeMergeProcessor.SPILL_THRESHOLD * 3; i++) {
+				int lowerBound = random.nextInt(99900);
+				int upperBound = lowerBound + random.nextInt(20);
+				zipCodeRangeBuffer.accept(lowerBound, upperBound);
+				upstream.submit(new ZipCodeRange(lowerBound, upperBound));
+			}
+		}
+
+		completion.get(10, TimeUnit.SECONDS);
+		ZipCodeRangeSet expected = MergeStrategy.SORT.merge(zipCodeRangeBuffer);
+		assertEquals(expected.toList().toString(), merged.toString());
+	}
+
+	/**
+	 * Test for a small unsorted input with overlapping and adjacent ranges.
+	 * Expect the merged ranges in ascending order once the input completes.
+	 */
+	@Test
+	public void testUnsortedInputBuffered() throws Exception {
+		ZipCodeRangeMergeProcessor processor = new ZipCodeRangeMergeProcessor(false);
+		List<ZipCodeRange> merged = new ArrayList<>();
+		CompletableFuture<Void> completion = processor.consume(merged::add);
+
+		try (SubmissionPublisher<ZipCodeRange> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(processor);
+			upstream.submit(new ZipCodeRange(94226, 94399));
+			upstream.submit(new ZipCodeRange(94133, 94133));
+			upstream.submit(new ZipCodeRange(94200, 94299));
+			upstream.submit(new ZipCodeRange(94134, 94140));
+		}
+
+		completion.get(10, TimeUnit.SECONDS);
+		assertEquals("[[94133, 94140], [94200, 94399]]", merged.toString());
+	}
+
+	/**
+	 * Test for a range out of order in a sorted input.
+	 * Expect the processor to complete exceptionally with IllegalArgumentException.
+	 */
+	@Test
+	public void testSortedInputOutOfOrder() throws Exception {
+		ZipCodeRangeMergeProcessor processor = new ZipCodeRangeMergeProcessor(true);
+		CompletableFuture<Void> completion = processor.consume(zipCodeRange -> { });
+
+		try (SubmissionPublisher<ZipCodeRange> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(processor);
+			upstream.submit(new ZipCodeRange(94200, 94299));
+			upstream.submit(new ZipCodeRange(94133, 94133));
+		}
+
+		try {
+			completion.get(10, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+	/**
+	 * Test for a range with a lower bound greater than its upper bound.
+	 * Expect the processor to complete exceptionally with InvalidZipCodeRangeException.
+	 */
+	@Test
+	public void testInvalidRange() throws Exception {
+		ZipCodeRangeMergeProcessor processor = new ZipCodeRangeMergeProcessor(false);
+		CompletableFuture<Void> completion = processor.consume(zipCodeRange -> { });
+
+		try (SubmissionPublisher<ZipCodeRange> upstream = new SubmissionPublisher<>()) {
+			upstream.subscribe(processor);
+			upstream.submit(new ZipCodeRange(94299, 94200));
+		}
+
+		try {
+			completion.get(10, TimeUnit.SECONDS);
+			fail();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof InvalidZipCodeRangeException);
+		}
+	}
+}
@@ -2,16 +2,28 @@ package com.hp.zipcode.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.exception.ZipCodeRangeErrorKind;
 import com.hp.zipcode.model.ZipCodeRange;
+import com.hp.zipcode.model.ZipCodeRangeError;
+import com.hp.zipcode.model.ZipCodeRangeSet;
 
 /**
  * 
@@ -127,6 +139,23 @@ public class ZipCodeServiceTest {
 		zipcodeService.mergeOverlappingZipCodeRanges(zipcodeRanges);
 	}
 
+	/**
+	 * Test for zip code ranges with leading zeros and lower bound greater than upper bound. 
+	 * Expect InvalidZipCodeRangeException to be thrown with an
+	 * ZIPCODE_RANGE_OUT_OF_BOUND_ERROR error message that keeps the leading zeros.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testZipCodeRangeWithLeadingZerosOutOfBound() throws Exception {
+		expectedEx.expect(InvalidZipCodeRangeException.class);
+		expectedEx.expectMessage(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_OUT_OF_BOUND_ERROR, "00600", "00501"));
+
+		// A zip code ranges with lower bound greater than upper bound
+		String zipcodeRanges = "[00501, 00599] [ 00600 , 00501 ]";
+		zipcodeService.mergeOverlappingZipCodeRanges(zipcodeRanges);
+	}
+
 	/**
 	 * Test for zip code ranges with missing lower and upper bound zip codes. 
 	 * Expect InvalidZipCodeRangeException to be thrown with an
@@ -249,6 +278,24 @@ public class ZipCodeServiceTest {
 		assertEquals(95766, zipCodeRangeList.get(1).getUpperBound());
 	}
 
+	/**
+	 * Test for the BITMAP merge strategy with no order, overlapping and adjacent ranges. 
+	 * Expect the same zip code ranges as the SORT merge strategy to be returned.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeWithBitmapMergeStrategy() throws Exception {
+		String zipcodeRanges = "[95786, 95796] [00000, 00063] [95746, 95766] [00064, 00127] [95756, 95776] [99990, 99999]";
+		List<ZipCodeRange> zipCodeRangeList = new ZipCodeService(MergeStrategy.BITMAP).mergeOverlappingZipCodeRanges(zipcodeRanges);
+		assertEquals(zipcodeService.mergeOverlappingZipCodeRanges(zipcodeRanges).toString(), zipCodeRangeList.toString());
+		assertEquals(4, zipCodeRangeList.size());
+		assertEquals(0, zipCodeRangeList.get(0).getLowerBound());
+		assertEquals(127, zipCodeRangeList.get(0).getUpperBound());
+		assertEquals(99990, zipCodeRangeList.get(3).getLowerBound());
+		assertEquals(99999, zipCodeRangeList.get(3).getUpperBound());
+	}
+
 	/**
 	 * Test for zip code ranges that contains tabs in the ranges. 
 	 * Expect a non-overlapping zip code ranges to be returned.
@@ -267,4 +314,219 @@ public class ZipCodeServiceTest {
 		assertEquals(95746, zipCodeRangeList.get(0).getLowerBound());
 		assertEquals(95776, zipCodeRangeList.get(0).getUpperBound());
 	}
+
+	/**
+	 * Test for a zip code range file mapped in segments smaller than a range. 
+	 * Expect the same zip code ranges as merging the content of the file as a string.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeZipCodeRangeFileInSegments() throws Exception {
+		String zipcodeRanges = "[95746, 95766]  [95786, 95796]\n[95756, 95776] [00501,\n[94133,94133] [94200,94299] [94226,94399]";
+		Path zipcodeRangeFile = Files.createTempFile("zipcode-ranges", ".txt");
+		try {
+			Files.write(zipcodeRangeFile, zipcodeRanges.getBytes(StandardCharsets.US_ASCII));
+			ZipCodeRangeSet zipCodeRangeSet = zipcodeService.mergeZipCodeRangeFile(zipcodeRangeFile, 16);
+			assertEquals(zipcodeService.mergeZipCodeRanges(zipcodeRanges), zipCodeRangeSet);
+			assertEquals(4, zipCodeRangeSet.size());
+		} finally {
+			Files.delete(zipcodeRangeFile);
+		}
+	}
+
+	/**
+	 * Test for large zip code ranges merged in parallel with invalid ranges in several chunks. 
+	 * Expect the error of the first invalid range in the input to be reported.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testParallelMergeReportsFirstError() throws Exception {
+		expectedEx.expect(InvalidZipCodeRangeException.class);
+		expectedEx.expectMessage(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR, "1000a"));
+
+		StringBuilder zipcodeRanges = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			zipcodeRanges.append("[10000, 10005] ");
+			if (i == 30000) {
+				zipcodeRanges.append("[1000a, 10005] ");
+			} else if (i == 90000) {
+				zipcodeRanges.append("[10005, 10000] ");
+			}
+		}
+		try (ZipCodeService parallelZipcodeService = new ZipCodeService(MergeStrategy.SORT, 4)) {
+			parallelZipcodeService.mergeZipCodeRanges(zipcodeRanges.toString());
+		}
+	}
+
+	/**
+	 * Test for zip code ranges merged in parallel from a low parallel threshold. 
+	 * Expect the same zip code ranges as merging them sequentially.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testParallelMergeFromThreshold() throws Exception {
+		String zipcodeRanges = "[94133,94133] [94200,94299] [94600,94699] [94226,94399]";
+		try (ZipCodeService parallelZipcodeService = new ZipCodeService(MergeStrategy.SORT, 2, 1)) {
+			assertEquals(zipcodeService.mergeZipCodeRanges(zipcodeRanges), parallelZipcodeService.mergeZipCodeRanges(zipcodeRanges));
+		}
+	}
+
+	/**
+	 * Test for zip code ranges streamed a few chars at a time. 
+	 * Expect the same zip code ranges as merging them as a string.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeZipCodeRangeStream() throws Exception {
+		String zipcodeRanges = "[95746, 95766]  [95786, 95796]\n[95756, 95776] [00501,\n[94133,94133] [94200,94299] [94226,94399]";
+		Reader reader = new StringReader(zipcodeRanges) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, 3));
+			}
+		};
+		assertEquals(zipcodeService.mergeZipCodeRanges(zipcodeRanges), zipcodeService.mergeZipCodeRangeStream(reader));
+	}
+
+	/**
+	 * Test for a stream with a bracket that is never closed. 
+	 * Expect InvalidZipCodeRangeException to be thrown with an EXTRACT_ZIPCODE_RANGE_ERROR error message
+	 * instead of buffering the rest of the stream.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeZipCodeRangeStreamWithUnclosedBracket() throws Exception {
+		expectedEx.expect(InvalidZipCodeRangeException.class);
+		expectedEx.expectMessage(ZipCodeService.EXTRACT_ZIPCODE_RANGE_ERROR);
+
+		char[] unclosedBracket = new char[1 << 20];
+		Arrays.fill(unclosedBracket, '9');
+		unclosedBracket[0] = '[';
+		zipcodeService.mergeZipCodeRangeStream(new StringReader("[94133,94133] " + new String(unclosedBracket)));
+	}
+
+	/**
+	 * Test for a lenient merge of a stream with a bracket too long to be a range. 
+	 * Expect an EXTRACT error at the bracket and the ranges after its closing bracket to be merged.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeZipCodeRangeStreamLenientlyWithLongBracket() throws Exception {
+		char[] longBracket = new char[1 << 20];
+		Arrays.fill(longBracket, ' ');
+		longBracket[0] = '[';
+		longBracket[longBracket.length - 1] = ']';
+		ZipCodeRangeMergeResult result = zipcodeService.mergeZipCodeRangeStreamLeniently(
+				new StringReader("[94133,94133] " + new String(longBracket) + " [94200,94299]"));
+
+		assertEquals("[94133, 94133] [94200, 94299]", result.getMergedRanges().toString());
+		assertEquals(1, result.getErrors().size());
+		assertEquals(ZipCodeRangeErrorKind.EXTRACT, result.getErrors().get(0).getKind());
+		assertEquals(14, result.getErrors().get(0).getPosition());
+	}
+
+	/**
+	 * Test for a lenient merge of zip code ranges that contain invalid ranges. 
+	 * Expect the valid ranges to be merged and the invalid ones to be reported in input order.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeZipCodeRangesLeniently() throws Exception {
+		String zipcodeRanges = "[94133,94133] [9420A,94299] [94299, 94200] [94226,94399] [94400]";
+		ZipCodeRangeMergeResult result = zipcodeService.mergeZipCodeRangesLeniently(zipcodeRanges);
+
+		assertEquals("[94133, 94133] [94226, 94399]", result.getMergedRanges().toString());
+		assertEquals(3, result.getErrors().size());
+		assertEquals(new ZipCodeRangeError(ZipCodeRangeErrorKind.VALIDATION, 15, "9420A"), result.getErrors().get(0));
+		assertEquals(new ZipCodeRangeError(ZipCodeRangeErrorKind.OUT_OF_BOUND, 29, "94299, 94200"), result.getErrors().get(1));
+		assertEquals(new ZipCodeRangeError(ZipCodeRangeErrorKind.VALIDATION, 58, "94400"), result.getErrors().get(2));
+	}
+
+	/**
+	 * Test for a lenient merge of an empty stream. 
+	 * Expect an empty set and a validation error.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeEmptyStreamLeniently() throws Exception {
+		ZipCodeRangeMergeResult result = zipcodeService.mergeZipCodeRangeStreamLeniently(new StringReader(""));
+
+		assertTrue(result.getMergedRanges().isEmpty());
+		assertEquals(ZipCodeRangeErrorKind.VALIDATION, result.getErrors().get(0).getKind());
+	}
+
+	/**
+	 * Test for the strategies picked by the ADAPTIVE merge strategy. 
+	 * Expect a scan of sorted ranges, a sort of a few ranges, a bitmap for short unsorted ranges or a
+	 * narrow span and a radix sort for long unsorted ranges or a wide span.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testAdaptiveMergeStrategyPlan() throws Exception {
+		assertEquals(MergeStrategy.PRESORTED_SCAN, planAdaptiveMerge("[00501,00600] [00700,00800] [00750,00900]"));
+		assertEquals(MergeStrategy.SORT, planAdaptiveMerge("[94226,94399] [94133,94133]"));
+		assertEquals(MergeStrategy.BITMAP, planAdaptiveMerge(descendingZipCodeRanges(1000, 90, 100)));
+		assertEquals(MergeStrategy.RADIX_SORT, planAdaptiveMerge(descendingZipCodeRanges(1000, 90, 1000)));
+		assertEquals(MergeStrategy.BITMAP, planAdaptiveMerge(descendingZipCodeRanges(100, 9, 10)));
+		assertEquals(MergeStrategy.RADIX_SORT, planAdaptiveMerge(descendingZipCodeRanges(100, 900, 10)));
+	}
+
+	/**
+	 * Test for every merge strategy on random zip code ranges. 
+	 * Expect the same merged ranges as the SORT strategy.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	public void testMergeStrategiesGiveSameRanges() throws Exception {
+		Random random = new Random(42);
+		for (int size : new int[] { 1, 10, 100, 1000, 10000 }) {
+			for (int maxLength : new int[] { 1, 100, 10000 }) {
+				StringBuilder zipcodeRanges = new StringBuilder();
+				for (int i = 0; i < size; i++) {
+					int lowerBound = random.nextInt(ZipCodeRange.MAX_ZIP_CODE + 1);
+					int upperBound = Math.min(ZipCodeRange.MAX_ZIP_CODE, lowerBound + random.nextInt(maxLength));
+					zipcodeRanges.append('[').append(ZipCodeRangeParser.formatZipCode(lowerBound)).append(',')
+							.append(ZipCodeRangeParser.formatZipCode(upperBound)).append("] ");
+				}
+				ZipCodeRangeSet expected = new ZipCodeService(MergeStrategy.SORT).mergeZipCodeRanges(zipcodeRanges.toString());
+				for (MergeStrategy mergeStrategy : MergeStrategy.values()) {
+					assertEquals(mergeStrategy.name(), expected,
+							new ZipCodeService(mergeStrategy).mergeZipCodeRanges(zipcodeRanges.toString()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the strategy the ADAPTIVE merge strategy picks for the zip code ranges
+	 */
+	private static MergeStrategy planAdaptiveMerge(String zipcodeRanges) throws InvalidZipCodeRangeException {
+		ZipCodeRangeBuffer zipCodeRangeBuffer = new ZipCodeRangeBuffer();
+		new ZipCodeRangeParser().parse(zipcodeRanges, zipCodeRangeBuffer);
+		return MergeStrategy.ADAPTIVE.plan(zipCodeRangeBuffer);
+	}
+
+	/**
+	 * @return ranges of the given length with lower bounds descending by the given step
+	 */
+	private static String descendingZipCodeRanges(int size, int step, int length) {
+		StringBuilder zipcodeRanges = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			int lowerBound = 99000 - i * step;
+			zipcodeRanges.append('[').append(ZipCodeRangeParser.formatZipCode(lowerBound)).append(',')
+					.append(ZipCodeRangeParser.formatZipCode(Math.min(ZipCodeRange.MAX_ZIP_CODE, lowerBound + length - 1)))
+					.append("] ");
+		}
+		return zipcodeRanges.toString();
+	}
 }
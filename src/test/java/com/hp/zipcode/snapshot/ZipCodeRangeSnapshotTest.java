@@ -0,0 +1,122 @@
+package com.hp.zipcode.snapshot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.hp.zipcode.model.ZipCodeRangeSet;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipCodeRangeSnapshotTest {
+	@Rule
+	public ExpectedException expectedEx = ExpectedException.none();
+
+	private final ZipCodeRangeSet zipCodeRangeSet = new ZipCodeRangeSet.Builder()
+			.add(0, 0).add(501, 600).add(94133, 94133).add(94200, 94399).add(99999, 99999).build();
+
+	/**
+	 * Test for writing a snapshot to a file and memory mapping it back.
+	 * Expect the same ranges and the covered zip codes to be found.
+	 */
+	@Test
+	public void testWriteAndOpen() throws IOException {
+		Path snapshotFile = Files.createTempFile("zipcode", ".snapshot");
+		try {
+			ZipCodeRangeSnapshot.write(zipCodeRangeSet, snapshotFile);
+			ZipCodeRangeSnapshot snapshot = ZipCodeRangeSnapshot.open(snapshotFile);
+
+			assertEquals(5, snapshot.size());
+			assertEquals(zipCodeRangeSet, snapshot.toRangeSet());
+			assertTrue(snapshot.contains(0));
+			assertTrue(snapshot.contains(94300));
+			assertTrue(snapshot.contains(99999));
+			assertFalse(snapshot.contains(94134));
+		} finally {
+			Files.delete(snapshotFile);
+		}
+	}
+
+	/**
+	 * Test for decoding the ranges from the snapshot bytes.
+	 * Expect the ranges in ascending order.
+	 */
+	@Test
+	public void testForEach() throws IOException {
+		ZipCodeRangeSnapshot snapshot = ZipCodeRangeSnapshot.read(ZipCodeRangeSnapshot.encode(zipCodeRangeSet));
+
+		ZipCodeRangeSet.Builder builder = new ZipCodeRangeSet.Builder();
+		snapshot.forEach(builder);
+		assertArrayEquals(zipCodeRangeSet.toBoundsArray(), builder.build().toBoundsArray());
+	}
+
+	/**
+	 * Test for a snapshot without ranges.
+	 * Expect an empty set.
+	 */
+	@Test
+	public void testEmptySnapshot() throws IOException {
+		ZipCodeRangeSnapshot snapshot = ZipCodeRangeSnapshot.read(ZipCodeRangeSnapshot.encode(ZipCodeRangeSet.EMPTY));
+
+		assertEquals(0, snapshot.size());
+		assertTrue(snapshot.toRangeSet().isEmpty());
+	}
+
+	/**
+	 * Test for a snapshot whose payload is corrupted.
+	 * Expect IOException to be thrown.
+	 */
+	@Test
+	public void testCorruptedPayload() throws IOException {
+		ByteBuffer bytes = ZipCodeRangeSnapshot.encode(zipCodeRangeSet);
+		bytes.put(ZipCodeRangeSnapshot.HEADER_SIZE, (byte) (bytes.get(ZipCodeRangeSnapshot.HEADER_SIZE) + 1));
+
+		expectedEx.expect(IOException.class);
+		expectedEx.expectMessage("checksum mismatch");
+		ZipCodeRangeSnapshot.read(bytes);
+	}
+
+	/**
+	 * Test for a snapshot with a valid checksum holding a range adjacent to the previous one.
+	 * Expect IOException to be thrown with the index and the bounds of the range.
+	 */
+	@Test
+	public void testRangeNotMerged() throws IOException {
+		//[100,200] then a gap of 0 and a length of 5: [201,206]
+		byte[] payload = { 100, 100, 0, 5 };
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer bytes = ByteBuffer.allocate(ZipCodeRangeSnapshot.HEADER_SIZE + payload.length);
+		bytes.putInt(ZipCodeRangeSnapshot.MAGIC).putShort(ZipCodeRangeSnapshot.VERSION).putShort((short) 0)
+				.putInt(2).putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+		expectedEx.expect(IOException.class);
+		expectedEx.expectMessage("range 1 [201,206] is not merged with the previous range");
+		ZipCodeRangeSnapshot.read(bytes);
+	}
+
+	/**
+	 * Test for bytes that are not a snapshot.
+	 * Expect IOException to be thrown.
+	 */
+	@Test
+	public void testBadMagicNumber() throws IOException {
+		expectedEx.expect(IOException.class);
+		expectedEx.expectMessage("bad magic number");
+		ZipCodeRangeSnapshot.read(ByteBuffer.wrap("[94133,94133] [94200,94299]".getBytes("US-ASCII")));
+	}
+}
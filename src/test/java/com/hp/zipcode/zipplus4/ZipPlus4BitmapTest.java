@@ -0,0 +1,89 @@
+package com.hp.zipcode.zipplus4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipPlus4BitmapTest {
+
+	/**
+	 * Test for overlapping and adjacent ranges added in any order, some of them spanning several chunks.
+	 * Expect the merged ranges, runs touching at a chunk boundary being merged.
+	 */
+	@Test
+	public void testAddMergesRanges() {
+		ZipPlus4Bitmap zipPlus4Bitmap = new ZipPlus4Bitmap();
+		zipPlus4Bitmap.add(941330100, 941330199);
+		zipPlus4Bitmap.add(941330000, 941330099);
+		zipPlus4Bitmap.add(941340000, 941349999);
+		zipPlus4Bitmap.add(65535, 65535);
+		zipPlus4Bitmap.add(65536, 200000);
+
+		assertEquals("[00006-5535,00020-0000] [94133-0000,94133-0199] [94134-0000,94134-9999]", zipPlus4Bitmap.toString());
+		assertEquals(3, zipPlus4Bitmap.getRangeCount());
+		assertEquals(134466 + 200 + 10000, zipPlus4Bitmap.getCardinality());
+	}
+
+	/**
+	 * Test for contains at the bounds of the ranges and out of the ZIP+4 domain.
+	 * Expect only the values of the ranges to be found.
+	 */
+	@Test
+	public void testContains() {
+		ZipPlus4Bitmap zipPlus4Bitmap = new ZipPlus4Bitmap();
+		zipPlus4Bitmap.add(941330100, 941330199);
+		zipPlus4Bitmap.add(999999999, 999999999);
+
+		assertTrue(zipPlus4Bitmap.contains(941330100));
+		assertTrue(zipPlus4Bitmap.contains(941330199));
+		assertTrue(zipPlus4Bitmap.contains(999999999));
+		assertFalse(zipPlus4Bitmap.contains(941330099));
+		assertFalse(zipPlus4Bitmap.contains(941330200));
+		assertFalse(zipPlus4Bitmap.contains(-1));
+		assertFalse(zipPlus4Bitmap.contains(1000000000));
+	}
+
+	/**
+	 * Test for optimizing chunks of single values, of long runs and of many short runs.
+	 * Expect array, run and bitmap containers, and the same ranges once optimized.
+	 */
+	@Test
+	public void testOptimize() {
+		ZipPlus4Bitmap zipPlus4Bitmap = new ZipPlus4Bitmap();
+		//chunk 0, 100 single values
+		for (int i = 0; i < 100; i++) {
+			zipPlus4Bitmap.add(i * 3, i * 3);
+		}
+		//chunk 1, one long run
+		zipPlus4Bitmap.add(1 << 16, (1 << 16) + 50000);
+		//chunk 2, 20000 runs of 2 values
+		for (int i = 0; i < 20000; i++) {
+			zipPlus4Bitmap.add((2 << 16) + i * 3, (2 << 16) + i * 3 + 1);
+		}
+		String ranges = zipPlus4Bitmap.toString();
+		zipPlus4Bitmap.optimize();
+
+		assertEquals(ranges, zipPlus4Bitmap.toString());
+		assertEquals(2 * 3 + 100 * 2 + 4 + Container.BITMAP_SIZE_IN_BYTES, zipPlus4Bitmap.getSizeInBytes());
+
+		//ranges can still be added to the optimized containers, [1,2] joins 0 and 3
+		zipPlus4Bitmap.add(1, 2);
+		assertEquals(99 + 1 + 20000, zipPlus4Bitmap.getRangeCount());
+	}
+
+	/**
+	 * Test for a range that is not a valid ZIP+4 range.
+	 * Expect IllegalArgumentException to be thrown.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddInvalidRange() {
+		new ZipPlus4Bitmap().add(0, 1000000000);
+	}
+}
@@ -0,0 +1,62 @@
+package com.hp.zipcode.zipplus4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.MessageFormat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.hp.zipcode.exception.InvalidZipCodeRangeException;
+import com.hp.zipcode.service.ZipCodeService;
+
+/**
+ *
+ * @author Huy Pham
+ *
+ */
+public class ZipPlus4ServiceTest {
+	@Rule
+	public ExpectedException expectedEx = ExpectedException.none();
+
+	private ZipPlus4Service zipPlus4Service = new ZipPlus4Service();
+
+	/**
+	 * Test for ZIP+4 ranges with and without dash, and 5 digits zip codes.
+	 * Expect the 5 digits zip codes to stand for all their ZIP+4 codes and the ranges to be merged.
+	 */
+	@Test
+	public void testMergeZipPlus4Ranges() throws InvalidZipCodeRangeException {
+		ZipPlus4Bitmap zipPlus4Bitmap = zipPlus4Service.mergeZipPlus4Ranges(
+				"[94133-0001,94133-0099] [941330100, 941330200] [94200,94299] [94300-0000,94300-0000]");
+
+		assertEquals("[94133-0001,94133-0200] [94200-0000,94300-0000]", zipPlus4Bitmap.toString());
+		assertTrue(zipPlus4Bitmap.contains(942991234));
+	}
+
+	/**
+	 * Test for a ZIP+4 range with an invalid add-on code.
+	 * Expect InvalidZipCodeRangeException to be thrown with an ZIPCODE_RANGE_VALIDATION_ERROR error message.
+	 */
+	@Test
+	public void testInvalidZipPlus4() throws InvalidZipCodeRangeException {
+		expectedEx.expect(InvalidZipCodeRangeException.class);
+		expectedEx.expectMessage(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_VALIDATION_ERROR, "94133-01"));
+
+		zipPlus4Service.mergeZipPlus4Ranges("[94133-0001,94133-0099] [94133-01,94133-0200]");
+	}
+
+	/**
+	 * Test for a ZIP+4 range whose lower bound is greater than its upper bound.
+	 * Expect InvalidZipCodeRangeException to be thrown with the ZIP+4 codes in the error message.
+	 */
+	@Test
+	public void testZipPlus4OutOfBound() throws InvalidZipCodeRangeException {
+		expectedEx.expect(InvalidZipCodeRangeException.class);
+		expectedEx.expectMessage(MessageFormat.format(ZipCodeService.ZIPCODE_RANGE_OUT_OF_BOUND_ERROR, "94133-0100", "94133-0099"));
+
+		zipPlus4Service.mergeZipPlus4Ranges("[94133-0100,94133-0099]");
+	}
+}